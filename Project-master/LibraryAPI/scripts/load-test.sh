@@ -0,0 +1,17 @@
+#!/usr/bin/env bash
+# Mixed HTTP load test on localhost, reporting throughput and latency percentiles per scenario.
+#
+#   scripts/load-test.sh                                  # in-JVM application, 100k skewed books
+#   scripts/load-test.sh --users=64 --duration=5m --books=1000000
+#   scripts/load-test.sh --base-url=http://localhost:8080 \
+#       --books=5000000 --authors=1000000 --customers=2000000 --libraries=10000
+#
+# The last form targets an application already running, e.g. one seeded with
+#   mvn spring-boot:run -Dspring-boot.run.profiles=seed
+# Results are printed and written to target/load-result.csv (--out to change).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+mvn -B -q -Pbenchmark verify -DskipTests \
+    -Dbenchmark.main=com.libapi.benchmark.LoadDriver \
+    -Dbenchmark.args="$*"
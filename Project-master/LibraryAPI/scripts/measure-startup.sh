@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# Cold-start numbers for a packaged build: the time Spring reports for startup,
+# the time until the first request is answered, and resident memory at that point.
+#
+#   scripts/measure-startup.sh jar      # mvn package
+#   scripts/measure-startup.sh cds      # mvn -Pfast-startup package
+#   scripts/measure-startup.sh native   # mvn -Pnative native:compile
+#
+# RUNS (default 5) sets the number of starts, PORT (default 18080) the port used.
+# The cds build starts from target/cds, since the archive only matches the class path
+# it was recorded with; -Xshare:on makes the JVM refuse to start if it does not.
+set -euo pipefail
+
+mode=${1:-jar}
+runs=${RUNS:-5}
+port=${PORT:-18080}
+jar=LibraryAPI-0.0.1-SNAPSHOT
+
+cd "$(dirname "$0")/.."
+dir=.
+case "$mode" in
+    jar) command=(java -jar "target/$jar.jar") ;;
+    cds)
+        dir=target/cds
+        command=(java -XX:SharedArchiveFile=application.jsa -Xshare:on -Dspring.aot.enabled=true -jar "$jar.jar")
+        ;;
+    native) command=(target/LibraryAPI) ;;
+    *) echo "Unknown mode $mode, expected jar, cds or native" >&2; exit 1 ;;
+esac
+
+echo "mode,run,started_s,first_request_ms,rss_mb"
+for run in $(seq 1 "$runs"); do
+    log=$PWD/target/startup-$mode-$run.log
+    start=$(date +%s%N)
+    (cd "$dir" && exec "${command[@]}" --server.port="$port" --spring.datasource.url="jdbc:h2:mem:startup") > "$log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$port/books?limit=1"; do
+        kill -0 "$pid" 2> /dev/null || { echo "Application exited, see $log" >&2; exit 1; }
+        sleep 0.01
+    done
+    first_request_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+    rss_mb=$(( $(awk '/VmRSS/ {print $2}' "/proc/$pid/status") / 1024 ))
+    started_s=$(grep -o 'Started LibraryApiApplication in [0-9.]*' "$log" | awk '{print $4}')
+    kill "$pid"
+    wait "$pid" || true
+    echo "$mode,$run,$started_s,$first_request_ms,$rss_mb"
+done
@@ -0,0 +1,90 @@
+package com.libapi.benchmark;
+
+import com.libapi.entity.AuthorEntity;
+import com.libapi.entity.LibraryEntity;
+import com.libapi.seed.SeedPlan;
+import com.libapi.service.AuthorService;
+import com.libapi.service.CustomerService;
+import com.libapi.service.LibraryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single-book association methods of the author, customer and library services.
+ * <p>
+ * Each call runs in its own transaction, as it would inside a web request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AssociationBenchmark {
+
+    private static final int BOOKS = 10_000;
+
+    private SeedPlan plan;
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private AuthorService authorService;
+    private CustomerService customerService;
+    private LibraryService libraryService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Nothing is lent out, so every checkout below succeeds
+        plan = BenchmarkContexts.catalog(BOOKS, 0);
+        context = BenchmarkContexts.start(plan, false);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        authorService = context.getBean(AuthorService.class);
+        customerService = context.getBean(CustomerService.class);
+        libraryService = context.getBean(LibraryService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AuthorEntity associateBookWithAuthor() {
+        long authorId = random(plan.getAuthors());
+        long bookId = random(plan.getBooks());
+        return transactionTemplate.execute(status -> authorService.associateBookWithAuthor(authorId, bookId));
+    }
+
+    @Benchmark
+    public LibraryEntity associateBookWithLibrary() {
+        long libraryId = random(plan.getLibraries());
+        long bookId = random(plan.getBooks());
+        return transactionTemplate.execute(status -> libraryService.associateBookWithLibrary(libraryId, bookId));
+    }
+
+    @Benchmark
+    public boolean checkOutAndReturnBook() {
+        long customerId = random(plan.getCustomers());
+        long bookId = random(plan.getBooks());
+        return transactionTemplate.execute(status -> customerService.checkOutBook(customerId, bookId)
+                && customerService.returnBook(customerId, bookId));
+    }
+
+    private static long random(int count) {
+        return 1 + ThreadLocalRandom.current().nextLong(count);
+    }
+}
@@ -0,0 +1,75 @@
+package com.libapi.benchmark;
+
+import com.libapi.dto.BatchResult;
+import com.libapi.entity.BookEntity;
+import com.libapi.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One batch read of N books against N single reads of the same books, with the read cache off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchGetBenchmark {
+
+    private static final int BOOKS = 100_000;
+
+    @Param({"10", "50", "500"})
+    public int ids;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private List<Long> bookIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start(BenchmarkContexts.catalog(BOOKS, 0.2), false);
+        bookService = context.getBean(BookService.class);
+
+        SplittableRandom random = new SplittableRandom(42);
+        bookIds = new ArrayList<>(ids);
+        for (int i = 0; i < ids; i++) {
+            bookIds.add(1 + random.nextLong(BOOKS));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BatchResult<BookEntity> batchGet() {
+        return bookService.getBooksByIds(bookIds);
+    }
+
+    @Benchmark
+    public void singleGets(Blackhole blackhole) {
+        for (Long id : bookIds) {
+            blackhole.consume(bookService.getBookById(id));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.libapi.benchmark;
+
+import com.libapi.LibraryApiApplication;
+import com.libapi.seed.CatalogSeeder;
+import com.libapi.seed.SeedPlan;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application without a web server against a private in-memory
+ * database, and fills it with reproducible data.
+ */
+final class BenchmarkContexts {
+
+    static final long SEED = 42L;
+
+    private BenchmarkContexts() {
+    }
+
+    /**
+     * Start a context and seed it.
+     *
+     * @param plan         The data to generate.
+     * @param cacheEnabled Whether the entity read cache is active.
+     * @return The running context; close it in the benchmark tear-down.
+     */
+    static ConfigurableApplicationContext start(SeedPlan plan, boolean cacheEnabled) {
+        return start(plan, cacheEnabled, true);
+    }
+
+    /**
+     * Start a context and seed it.
+     *
+     * @param plan              The data to generate.
+     * @param cacheEnabled      Whether the entity read cache is active.
+     * @param coalescingEnabled Whether concurrent identical reads share one load.
+     * @return The running context; close it in the benchmark tear-down.
+     */
+    static ConfigurableApplicationContext start(SeedPlan plan, boolean cacheEnabled, boolean coalescingEnabled) {
+        return start(plan, WebApplicationType.NONE,
+                "--spring.cache.type=" + (cacheEnabled ? "caffeine" : "none"),
+                "--libapi.coalescing.enabled=" + coalescingEnabled);
+    }
+
+    /**
+     * Start a context with a web server on a free port and seed it.
+     *
+     * @param plan The data to generate.
+     * @return The running context; its port is in the {@code local.server.port} property.
+     */
+    static ConfigurableApplicationContext startServer(SeedPlan plan) {
+        return start(plan, WebApplicationType.SERVLET, "--server.port=0");
+    }
+
+    private static ConfigurableApplicationContext start(SeedPlan plan, WebApplicationType type, String... settings) {
+        List<String> args = new ArrayList<>(List.of(settings));
+        args.add("--spring.datasource.url=jdbc:h2:mem:bench_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        args.add("--logging.level.root=WARN");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(type)
+                .logStartupInfo(false)
+                .run(args.toArray(String[]::new));
+        context.getBean(CatalogSeeder.class).seed(plan);
+        return context;
+    }
+
+    /**
+     * A catalog shaped like production: few libraries, many books per author and customer.
+     *
+     * @param books           Number of books.
+     * @param checkedOutRatio Fraction of books lent out.
+     * @return The seed plan.
+     */
+    static SeedPlan catalog(int books, double checkedOutRatio) {
+        return catalog(books, checkedOutRatio, 0);
+    }
+
+    /**
+     * A catalog shaped like production, with books spread unevenly over libraries, authors and customers.
+     *
+     * @param books           Number of books.
+     * @param checkedOutRatio Fraction of books lent out.
+     * @param skew            Zipf exponent of the spread, see {@link SeedPlan}.
+     * @return The seed plan.
+     */
+    static SeedPlan catalog(int books, double checkedOutRatio, double skew) {
+        return new SeedPlan(
+                Math.max(1, books / 1000),
+                books,
+                Math.max(1, books / 5),
+                Math.max(1, books / 10),
+                3,
+                checkedOutRatio,
+                skew,
+                SEED);
+    }
+}
@@ -0,0 +1,66 @@
+package com.libapi.benchmark;
+
+import com.libapi.dto.CursorPage;
+import com.libapi.entity.BookEntity;
+import com.libapi.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point reads and keyset pages of books at several table sizes, with the read cache off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int books;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start(BenchmarkContexts.catalog(books, 0.2), false);
+        bookService = context.getBean(BookService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookEntity getBookById() {
+        return bookService.getBookById(1 + ThreadLocalRandom.current().nextLong(books));
+    }
+
+    @Benchmark
+    public CursorPage<BookEntity> getAllBooksFirstPage() {
+        return bookService.getAllBooks(null, CursorPage.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public CursorPage<BookEntity> getAllBooksLastPage() {
+        return bookService.getAllBooks((long) books - CursorPage.DEFAULT_LIMIT, CursorPage.DEFAULT_LIMIT);
+    }
+}
@@ -0,0 +1,108 @@
+package com.libapi.benchmark;
+
+import com.libapi.seed.SeedPlan;
+import com.libapi.service.CustomerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Many customers checking out and returning the same few titles at once.
+ * Every thread is its own customer; a checkout that loses the race gets a 409
+ * and is counted as a conflict. Prints the conflicts per attempt after each
+ * iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class CheckoutContentionBenchmark {
+
+    private static final int BOOKS = 10_000;
+
+    /**
+     * Number of titles every thread competes for; all of them for an uncontended baseline.
+     */
+    @Param({"1", "8", "10000"})
+    public int hotBooks;
+
+    private ConfigurableApplicationContext context;
+    private CustomerService customerService;
+    private final AtomicInteger nextCustomer = new AtomicInteger();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    @State(Scope.Thread)
+    public static class Customer {
+
+        long id;
+
+        @Setup(Level.Trial)
+        public void setUp(CheckoutContentionBenchmark benchmark) {
+            id = benchmark.nextCustomer.incrementAndGet();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Nothing is lent out, so a checkout only fails against another thread
+        SeedPlan plan = BenchmarkContexts.catalog(BOOKS, 0);
+        context = BenchmarkContexts.start(plan, true);
+        customerService = context.getBean(CustomerService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounts() {
+        attempts.reset();
+        conflicts.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounts() {
+        System.out.printf("%n%.3f conflicts per checkout (hotBooks=%d)%n",
+                (double) conflicts.sum() / Math.max(1, attempts.sum()), hotBooks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean checkOutAndReturnHotBook(Customer customer) {
+        long bookId = 1 + ThreadLocalRandom.current().nextLong(hotBooks);
+        attempts.increment();
+        try {
+            return customerService.checkOutBook(customer.id, bookId)
+                    && customerService.returnBook(customer.id, bookId);
+        } catch (ResponseStatusException e) {
+            if (e.getStatusCode() != HttpStatus.CONFLICT) {
+                throw e;
+            }
+            conflicts.increment();
+            return false;
+        }
+    }
+}
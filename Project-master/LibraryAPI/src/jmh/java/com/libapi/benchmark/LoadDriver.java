@@ -0,0 +1,291 @@
+package com.libapi.benchmark;
+
+import com.libapi.seed.SeedPlan;
+import com.libapi.seed.ZipfDistribution;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load test mixing list, get-by-id, checkout and association
+ * traffic, reporting throughput and latency percentiles per scenario.
+ * <p>
+ * Without {@code --base-url} it starts the application in this JVM on a free
+ * localhost port, seeded with {@code --books} books spread with {@code --skew};
+ * with it, it targets an application already running, for example one
+ * started with the {@code seed} profile, whose sizes must then be passed as
+ * {@code --books}, {@code --authors}, {@code --customers} and {@code --libraries}.
+ * <pre>
+ * scripts/load-test.sh --users=64 --duration=60s
+ * </pre>
+ * Book and author ids are drawn from a Zipf distribution, so a few of them
+ * are hot as in production. Customers and libraries are drawn uniformly,
+ * because the skewed seed gives the most popular of them hundreds of
+ * thousands of books, which every GET would serialize.
+ */
+public final class LoadDriver {
+
+    /**
+     * A kind of request and its share of the traffic.
+     */
+    enum Scenario {
+        LIST_BOOKS(20),
+        GET_BOOK(30),
+        GET_AUTHOR(10),
+        GET_CUSTOMER(8),
+        GET_LIBRARY(2),
+        CHECKOUT(12),
+        // Sent after every successful checkout, so the lent-out ratio stays stable
+        RETURN(0),
+        LINK_AUTHOR(10),
+        SHELVE_BOOK(8);
+
+        private final int weight;
+
+        Scenario(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Map<Scenario, Stats> stats = new EnumMap<>(Scenario.class);
+    private final String baseUrl;
+    private final SeedPlan plan;
+    private final ZipfDistribution books;
+    private final ZipfDistribution authors;
+    private final Scenario[] mix;
+    private volatile boolean measuring;
+
+    private LoadDriver(String baseUrl, SeedPlan plan) {
+        this.baseUrl = baseUrl;
+        this.plan = plan;
+        this.books = new ZipfDistribution(plan.getBooks(), plan.getSkew());
+        this.authors = new ZipfDistribution(plan.getAuthors(), plan.getSkew());
+        List<Scenario> weighted = new ArrayList<>();
+        for (Scenario scenario : Scenario.values()) {
+            stats.put(scenario, new Stats());
+            for (int i = 0; i < scenario.weight; i++) {
+                weighted.add(scenario);
+            }
+        }
+        this.mix = weighted.toArray(new Scenario[0]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+        int users = Integer.parseInt(options.getOrDefault("users", "32"));
+        Duration warmup = Duration.parse("PT" + options.getOrDefault("warmup", "10s"));
+        Duration duration = Duration.parse("PT" + options.getOrDefault("duration", "60s"));
+        int bookCount = Integer.parseInt(options.getOrDefault("books", "100000"));
+        double skew = Double.parseDouble(options.getOrDefault("skew", "1.0"));
+        Path out = Path.of(options.getOrDefault("out", "target/load-result.csv"));
+
+        ConfigurableApplicationContext context = null;
+        SeedPlan plan = BenchmarkContexts.catalog(bookCount, 0.2, skew);
+        String baseUrl = options.get("base-url");
+        if (baseUrl == null) {
+            System.out.printf("Starting the application with %d books%n", bookCount);
+            context = BenchmarkContexts.startServer(plan);
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        } else {
+            plan = new SeedPlan(
+                    Integer.parseInt(options.getOrDefault("libraries", String.valueOf(plan.getLibraries()))),
+                    bookCount,
+                    Integer.parseInt(options.getOrDefault("authors", String.valueOf(plan.getAuthors()))),
+                    Integer.parseInt(options.getOrDefault("customers", String.valueOf(plan.getCustomers()))),
+                    plan.getMaxAuthorsPerBook(),
+                    plan.getCheckedOutRatio(),
+                    skew,
+                    plan.getSeed());
+        }
+        try {
+            LoadDriver driver = new LoadDriver(baseUrl, plan);
+            driver.run(users, warmup, duration);
+            driver.report(duration, out);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private void run(int users, Duration warmup, Duration duration) throws Exception {
+        System.out.printf("%d users against %s: %s warm-up, %s measured%n", users, baseUrl, warmup, duration);
+        long warmupEnd = System.nanoTime() + warmup.toNanos();
+        long end = warmupEnd + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int user = 0; user < users; user++) {
+                SplittableRandom random = new SplittableRandom(plan.getSeed() + user);
+                futures.add(executor.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        runOnce(mix[random.nextInt(mix.length)], random);
+                    }
+                    return null;
+                }));
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, warmupEnd - System.nanoTime()));
+            measuring = true;
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            measuring = false;
+            executor.shutdownNow();
+        }
+    }
+
+    private void runOnce(Scenario scenario, SplittableRandom random) {
+        switch (scenario) {
+            case LIST_BOOKS -> get(scenario, "/books?limit=20&after=" + random.nextInt(plan.getBooks()));
+            case GET_BOOK -> get(scenario, "/books/" + books.sample(random));
+            case GET_AUTHOR -> get(scenario, "/authors/" + authors.sample(random));
+            case GET_CUSTOMER -> get(scenario, "/customers/" + uniform(random, plan.getCustomers()));
+            case GET_LIBRARY -> get(scenario, "/libraries/" + uniform(random, plan.getLibraries()));
+            case CHECKOUT -> {
+                String customer = "/customers/" + uniform(random, plan.getCustomers());
+                long bookId = books.sample(random);
+                if (post(scenario, customer + "/checkout/" + bookId, null) == 204) {
+                    post(Scenario.RETURN, customer + "/return/" + bookId, null);
+                }
+            }
+            case LINK_AUTHOR -> post(scenario, "/authors/" + authors.sample(random) + "/addBook/" + books.sample(random), null);
+            case SHELVE_BOOK -> post(scenario, "/libraries/" + uniform(random, plan.getLibraries()) + "/addBooks",
+                    "[" + books.sample(random) + "]");
+            case RETURN -> throw new IllegalStateException("Returns follow checkouts");
+        }
+    }
+
+    private int get(Scenario scenario, String path) {
+        return send(scenario, HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+    }
+
+    private int post(Scenario scenario, String path, String json) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path));
+        if (json == null) {
+            request.POST(HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(json));
+        }
+        return send(scenario, request);
+    }
+
+    private int send(Scenario scenario, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = client.send(request.timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+        if (measuring) {
+            stats.get(scenario).record(System.nanoTime() - start, status);
+        }
+        return status;
+    }
+
+    private void report(Duration duration, Path out) throws IOException {
+        double seconds = duration.toNanos() / 1e9;
+        Stats total = new Stats();
+        String header = "scenario,requests,per_second,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,rejected,errors";
+        System.out.printf("%-13s %9s %9s %8s %8s %8s %8s %8s %8s %7s%n",
+                "scenario", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "rejected", "errors");
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(out))) {
+            csv.println(header);
+            for (Map.Entry<Scenario, Stats> entry : stats.entrySet()) {
+                print(entry.getKey().name().toLowerCase(), entry.getValue(), seconds, csv);
+                total.add(entry.getValue());
+            }
+            print("total", total, seconds, csv);
+        }
+        System.out.println("Written to " + out);
+    }
+
+    private static void print(String name, Stats stats, double seconds, PrintWriter csv) {
+        Histogram latencies = stats.latencies;
+        long requests = latencies.getTotalCount();
+        double[] row = {
+                requests / seconds,
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue())
+        };
+        System.out.printf("%-13s %9d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f %8d %7d%n",
+                name, requests, row[0], row[1], row[2], row[3], row[4], row[5],
+                stats.rejected.sum(), stats.errors.sum());
+        csv.printf("%s,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%d%n",
+                name, requests, row[0], row[1], row[2], row[3], row[4], row[5],
+                stats.rejected.sum(), stats.errors.sum());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static long uniform(SplittableRandom random, int count) {
+        return 1 + random.nextInt(count);
+    }
+
+    /**
+     * Latencies and outcomes of one scenario. 404, 409 and 412 are answers the
+     * API gives by design under this traffic, such as a book already lent out,
+     * so they are counted as rejected rather than as errors.
+     */
+    private static final class Stats {
+
+        private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long nanos, int status) {
+            latencies.recordValue(Math.min(nanos, latencies.getHighestTrackableValue()));
+            if (status == 404 || status == 409 || status == 412) {
+                rejected.increment();
+            } else if (status < 200 || status >= 400) {
+                errors.increment();
+            }
+        }
+
+        void add(Stats other) {
+            latencies.add(other.latencies);
+            rejected.add(other.rejected.sum());
+            errors.add(other.errors.sum());
+        }
+    }
+}
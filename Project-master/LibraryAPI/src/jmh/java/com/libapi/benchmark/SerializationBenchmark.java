@@ -0,0 +1,73 @@
+package com.libapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libapi.dto.CursorPage;
+import com.libapi.entity.BookEntity;
+import com.libapi.entity.LibraryEntity;
+import com.libapi.service.BookService;
+import com.libapi.service.LibraryService;
+import org.hibernate.Hibernate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the response shapes, on fully loaded entity graphs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private CursorPage<BookEntity> bookPage;
+    private LibraryEntity library;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start(BenchmarkContexts.catalog(10_000, 0.2), false);
+        objectMapper = context.getBean(ObjectMapper.class);
+        BookService bookService = context.getBean(BookService.class);
+        LibraryService libraryService = context.getBean(LibraryService.class);
+
+        bookPage = context.getBean(TransactionTemplate.class).execute(status -> {
+            CursorPage<BookEntity> page = bookService.getAllBooks(null, CursorPage.MAX_LIMIT);
+            page.getItems().forEach(book -> Hibernate.initialize(book.getAuthors()));
+            return page;
+        });
+        library = libraryService.getLibraryById(1L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serializeBookPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookPage);
+    }
+
+    @Benchmark
+    public byte[] serializeLibrary() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(library);
+    }
+}
@@ -0,0 +1,98 @@
+package com.libapi.benchmark;
+
+import com.libapi.dto.CursorPage;
+import com.libapi.entity.BookEntity;
+import com.libapi.entity.LibraryEntity;
+import com.libapi.service.BookService;
+import com.libapi.service.LibraryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Many threads reading the same book, library and first page at once, with
+ * the read cache off, with and without read coalescing. Prints the SQL
+ * statements per read after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class StampedeBenchmark {
+
+    private static final int BOOKS = 100_000;
+
+    @Param({"true", "false"})
+    public boolean coalescing;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private LibraryService libraryService;
+    private Statistics statistics;
+    private final LongAdder reads = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start(BenchmarkContexts.catalog(BOOKS, 0.2, 1.0), false, coalescing);
+        bookService = context.getBean(BookService.class);
+        libraryService = context.getBean(LibraryService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounts() {
+        statistics.clear();
+        reads.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounts() {
+        System.out.printf("%n%.3f SQL statements per read (coalescing=%s)%n",
+                (double) statistics.getPrepareStatementCount() / Math.max(1, reads.sum()), coalescing);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookEntity hotBook() {
+        reads.increment();
+        return bookService.getBookById(1L);
+    }
+
+    @Benchmark
+    public LibraryEntity hotLibrary() {
+        reads.increment();
+        return libraryService.getLibraryById(1L);
+    }
+
+    @Benchmark
+    public CursorPage<BookEntity> firstPage() {
+        reads.increment();
+        return bookService.getAllBooks(null, CursorPage.DEFAULT_LIMIT);
+    }
+}
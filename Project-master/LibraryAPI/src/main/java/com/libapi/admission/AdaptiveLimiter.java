@@ -0,0 +1,168 @@
+package com.libapi.admission;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit with a bounded wait queue, whose limit follows the
+ * latency of the requests it admits.
+ * <p>
+ * The limit is adjusted with a latency gradient: a short moving average of
+ * the response time is compared with a long one that serves as the baseline.
+ * While the short average stays within {@code RTT_TOLERANCE} of the baseline
+ * the limit grows by about its square root per sample; when requests slow
+ * down because the database or CPU is saturated, it shrinks in proportion,
+ * down to half per sample. The limit only grows while at least half of it is
+ * in use, so an idle group does not drift up to its maximum.
+ */
+public class AdaptiveLimiter {
+
+    /**
+     * Outcome of {@link #acquire(long)}.
+     */
+    public enum Outcome {
+        ADMITTED,
+        QUEUE_FULL,
+        TIMED_OUT
+    }
+
+    private static final double SHORT_WEIGHT = 0.2;
+    private static final double LONG_WEIGHT = 2.0 / 601;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private double shortRtt;
+    private double longRtt;
+
+    /**
+     * @param initialLimit Concurrency limit until latency samples move it.
+     * @param minLimit     Lowest the limit may go.
+     * @param maxLimit     Highest the limit may go.
+     * @param queueSize    Largest number of requests waiting for a slot; 0 rejects at once when saturated.
+     */
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, int queueSize) {
+        if (minLimit < 1 || maxLimit < minLimit || queueSize < 0) {
+            throw new IllegalArgumentException("Invalid limits " + minLimit + ".." + maxLimit + ", queue " + queueSize);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.queueSize = queueSize;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Take a slot, waiting in the queue if every slot is taken.
+     *
+     * @param maxWaitNanos How long to wait for a slot.
+     * @return ADMITTED if a slot was taken, which must be given back with {@link #release(long)}.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public Outcome acquire(long maxWaitNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            if (queued == 0 && inFlight < (int) limit) {
+                inFlight++;
+                return Outcome.ADMITTED;
+            }
+            if (queued >= queueSize) {
+                return Outcome.QUEUE_FULL;
+            }
+            queued++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return Outcome.TIMED_OUT;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return Outcome.ADMITTED;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Give back a slot.
+     *
+     * @param rttNanos How long the request held the slot, or a negative value
+     *                 if it says nothing about load, such as a failed or streamed request.
+     */
+    public void release(long rttNanos) {
+        lock.lock();
+        try {
+            int before = (int) limit;
+            if (rttNanos >= 0) {
+                sample(rttNanos);
+            }
+            inFlight--;
+            if ((int) limit > before) {
+                released.signalAll();
+            } else {
+                released.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sample(long rttNanos) {
+        if (shortRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+        }
+        shortRtt += (rttNanos - shortRtt) * SHORT_WEIGHT;
+        longRtt += (rttNanos - longRtt) * LONG_WEIGHT;
+        // After a long overload ends the baseline is far above current latency; let it come back down
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        if (inFlight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / Math.max(shortRtt, 1)));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.libapi.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits how many requests of each {@link EndpointGroup} run at once. A
+ * request over the limit waits in the group's bounded queue for up to
+ * {@code max-wait}; if the queue is full or the wait runs out it is answered
+ * with 503 and {@code Retry-After} without reaching a controller.
+ * <p>
+ * Each group is configured with {@code libapi.admission.<group>.initial-limit},
+ * {@code min-limit}, {@code max-limit}, {@code queue-size} and {@code max-wait};
+ * the limit then moves between its bounds with the observed latency, see
+ * {@link AdaptiveLimiter}. {@code libapi.admission.enabled=false} turns the
+ * filter off; it is read at runtime rather than through a condition, like the
+ * other runtime switches.
+ * <p>
+ * Publishes {@code libapi.admission.limit}, {@code .in-flight} and {@code .queued}
+ * gauges, the {@code libapi.admission.queue.wait} timer and the
+ * {@code libapi.admission.rejected} counter, all tagged with the group.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private final boolean enabled;
+    private final String retryAfterSeconds;
+    private final Map<EndpointGroup, Bulkhead> bulkheads = new EnumMap<>(EndpointGroup.class);
+
+    @Autowired
+    public AdmissionControlFilter(MeterRegistry meterRegistry, Environment environment) {
+        this.enabled = environment.getProperty("libapi.admission.enabled", Boolean.class, true);
+        Duration retryAfter = environment.getProperty("libapi.admission.retry-after", Duration.class, Duration.ofSeconds(1));
+        this.retryAfterSeconds = String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+        for (EndpointGroup group : EndpointGroup.values()) {
+            bulkheads.put(group, new Bulkhead(group, meterRegistry, environment));
+        }
+    }
+
+    /**
+     * The limiter of a group, for tests and diagnostics.
+     */
+    public AdaptiveLimiter getLimiter(EndpointGroup group) {
+        return bulkheads.get(group).limiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointGroup group = enabled ? EndpointGroup.of(request) : null;
+        if (group == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Bulkhead bulkhead = bulkheads.get(group);
+
+        long arrived = System.nanoTime();
+        AdaptiveLimiter.Outcome outcome;
+        try {
+            outcome = bulkhead.limiter.acquire(bulkhead.maxWaitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = AdaptiveLimiter.Outcome.TIMED_OUT;
+        }
+        long admitted = System.nanoTime();
+        bulkhead.queueWait.record(admitted - arrived, TimeUnit.NANOSECONDS);
+        if (outcome != AdaptiveLimiter.Outcome.ADMITTED) {
+            reject(group, bulkhead, outcome, response);
+            return;
+        }
+
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streamed responses hold their slot until they finish, but their duration is not a latency sample
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(bulkhead.limiter));
+            } else {
+                boolean sample = completed && response.getStatus() < 500;
+                bulkhead.limiter.release(sample ? System.nanoTime() - admitted : -1);
+            }
+        }
+    }
+
+    private void reject(EndpointGroup group, Bulkhead bulkhead, AdaptiveLimiter.Outcome outcome,
+            HttpServletResponse response) throws IOException {
+        if (outcome == AdaptiveLimiter.Outcome.QUEUE_FULL) {
+            bulkhead.queueFull.increment();
+        } else {
+            bulkhead.timedOut.increment();
+        }
+        log.debug("Shed {} request: {}", group.getKey(), outcome);
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Too many concurrent " + group.getKey() + " requests, retry later");
+    }
+
+    /**
+     * Limiter and meters of one group.
+     */
+    private static final class Bulkhead {
+
+        private final AdaptiveLimiter limiter;
+        private final long maxWaitNanos;
+        private final Counter queueFull;
+        private final Counter timedOut;
+        private final Timer queueWait;
+
+        Bulkhead(EndpointGroup group, MeterRegistry meterRegistry, Environment environment) {
+            String prefix = "libapi.admission." + group.getKey() + ".";
+            this.limiter = new AdaptiveLimiter(
+                    environment.getProperty(prefix + "initial-limit", Integer.class, group.getInitialLimit()),
+                    environment.getProperty(prefix + "min-limit", Integer.class, group.getMinLimit()),
+                    environment.getProperty(prefix + "max-limit", Integer.class, group.getMaxLimit()),
+                    environment.getProperty(prefix + "queue-size", Integer.class, group.getQueueSize()));
+            this.maxWaitNanos = environment.getProperty(prefix + "max-wait", Duration.class,
+                    Duration.ofMillis(group.getMaxWaitMillis())).toNanos();
+
+            String tag = group.getKey();
+            Gauge.builder("libapi.admission.limit", limiter, AdaptiveLimiter::getLimit)
+                    .description("Current concurrency limit")
+                    .tag("group", tag)
+                    .register(meterRegistry);
+            Gauge.builder("libapi.admission.in-flight", limiter, AdaptiveLimiter::getInFlight)
+                    .description("Requests holding a slot")
+                    .tag("group", tag)
+                    .register(meterRegistry);
+            Gauge.builder("libapi.admission.queued", limiter, AdaptiveLimiter::getQueued)
+                    .description("Requests waiting for a slot")
+                    .tag("group", tag)
+                    .register(meterRegistry);
+            this.queueFull = rejected(meterRegistry, tag, "queue-full");
+            this.timedOut = rejected(meterRegistry, tag, "timeout");
+            this.queueWait = Timer.builder("libapi.admission.queue.wait")
+                    .description("Time spent waiting for a slot, including rejected requests")
+                    .tag("group", tag)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+        }
+
+        private static Counter rejected(MeterRegistry meterRegistry, String group, String reason) {
+            return Counter.builder("libapi.admission.rejected")
+                    .description("Requests answered with 503 without being run")
+                    .tag("group", group)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Gives back the slot of an asynchronous request once, when it completes, fails or times out.
+     */
+    private static final class ReleaseOnCompletion implements AsyncListener {
+
+        private final AdaptiveLimiter limiter;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleaseOnCompletion(AdaptiveLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(-1);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.libapi.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Set;
+
+/**
+ * The groups of endpoints that get separate concurrency limits, so a burst of
+ * one kind of request cannot take the threads and connections of the others.
+ */
+public enum EndpointGroup {
+
+    /**
+     * Listings, searches, batch reads, statistics and the export: few of
+     * these run at once, since each can read many rows.
+     */
+    LIST("list", 4, 1, 16, 32, 500),
+
+    /**
+     * Reads of one resource by id, which are cheap and mostly cached.
+     */
+    POINT("point", 32, 4, 200, 200, 100),
+
+    /**
+     * Creates, updates, deletes, links and checkouts.
+     */
+    WRITE("write", 8, 2, 32, 64, 500);
+
+    private static final Set<String> UNLIMITED = Set.of(
+            "actuator", "error", "h2-console", "swagger-ui", "swagger-ui.html", "v3");
+
+    private final String key;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueSize;
+    private final long maxWaitMillis;
+
+    EndpointGroup(String key, int initialLimit, int minLimit, int maxLimit, int queueSize, long maxWaitMillis) {
+        this.key = key;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.queueSize = queueSize;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * The group of a request, or null if it is not limited: documentation,
+     * management and error endpoints, preflight requests and the change
+     * stream, which stays open for minutes while mostly idle.
+     */
+    public static EndpointGroup of(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("OPTIONS".equals(method) || "TRACE".equals(method)) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String[] segments = path.startsWith("/") ? path.substring(1).split("/") : path.split("/");
+        if (segments.length == 0 || UNLIMITED.contains(segments[0])) {
+            return null;
+        }
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return WRITE;
+        }
+        if (segments.length == 2 && "changes".equals(segments[0]) && "stream".equals(segments[1])) {
+            return null;
+        }
+        return segments.length == 2 && isId(segments[1]) ? POINT : LIST;
+    }
+
+    private static boolean isId(String segment) {
+        if (segment.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Name of the group in {@code libapi.admission.<key>.*} properties and metric tags.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+}
@@ -0,0 +1,106 @@
+package com.libapi.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caffeine cache whose evictions also take effect when the evicting
+ * transaction commits.
+ * <p>
+ * {@code @CacheEvict} runs when the write method returns, which can be before
+ * its transaction commits. A read that misses in between loads the old row
+ * and puts it back, where it would stay for the whole TTL. Evicting again
+ * after the commit removes such entries, and a read that missed before the
+ * commit does not put its result at all, since it may have loaded the row
+ * as it was before the write.
+ * <p>
+ * Remains a {@link CaffeineCache}, so cache statistics and metrics are unaffected.
+ */
+final class AfterCommitEvictingCache extends CaffeineCache {
+
+    /**
+     * Bumped by every eviction that follows a commit.
+     */
+    private final AtomicLong commits = new AtomicLong();
+
+    /**
+     * Value of {@link #commits} when the current thread last looked up a key.
+     */
+    private final ThreadLocal<Long> lookedUpAt = new ThreadLocal<>();
+
+    AfterCommitEvictingCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        lookedUpAt.set(commits.get());
+        return super.lookup(key);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (loadedBeforeCommit()) {
+            return;
+        }
+        super.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        if (loadedBeforeCommit()) {
+            return null;
+        }
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        afterCommit(() -> super.evict(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = super.evictIfPresent(key);
+        afterCommit(() -> super.evict(key));
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        afterCommit(super::clear);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean present = super.invalidate();
+        afterCommit(super::invalidate);
+        return present;
+    }
+
+    private boolean loadedBeforeCommit() {
+        Long lookedUp = lookedUpAt.get();
+        lookedUpAt.remove();
+        return lookedUp != null && lookedUp != commits.get();
+    }
+
+    private void afterCommit(Runnable evict) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commits.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                commits.incrementAndGet();
+                evict.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package com.libapi.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+
+/**
+ * Enables the entity read cache in front of the get-by-id service methods.
+ * <p>
+ * The caches themselves (size, TTL, statistics) are configured through
+ * {@code spring.cache.*} in application.properties, except the statistics
+ * cache, whose entries are never evicted by writes and so expire quickly.
+ * <p>
+ * The cache manager is declared here rather than left to Spring Boot so that
+ * evictions also take effect after the evicting transaction commits, see
+ * {@link AfterCommitEvictingCache}. It is only declared for
+ * {@code spring.cache.type=caffeine}, the default; any other type, such as
+ * {@code none} for the benchmarks that run without the cache, is left to
+ * Spring Boot.
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    public static final String BOOKS = "books";
+    public static final String AUTHORS = "authors";
+    public static final String CUSTOMERS = "customers";
+    public static final String LIBRARIES = "libraries";
+    public static final String STATS = "stats";
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "caffeine", matchIfMissing = true)
+    public CaffeineCacheManager cacheManager(
+            CacheProperties properties,
+            @Value("${libapi.stats.cache-ttl:30s}") Duration statsTtl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+                return new AfterCommitEvictingCache(name, cache, isAllowNullValues());
+            }
+        };
+        String specification = properties.getCaffeine().getSpec();
+        if (StringUtils.hasText(specification)) {
+            cacheManager.setCacheSpecification(specification);
+        }
+        cacheManager.setCacheNames(properties.getCacheNames());
+        cacheManager.registerCustomCache(STATS, Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(statsTtl)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
@@ -0,0 +1,39 @@
+package com.libapi.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics beyond what Spring Boot Actuator binds on its own.
+ * <p>
+ * Actuator already publishes request latency ({@code http.server.requests}),
+ * connection pool wait time ({@code hikaricp.connections.acquire}) and cache
+ * hit/miss counts ({@code cache.gets}).
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Times every method of classes annotated with {@code @Timed}, such as the services.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * Publishes Hibernate {@link org.hibernate.stat.Statistics}: queries, entity loads and fetches,
+     * second-level and query cache activity.
+     */
+    @Bean
+    public MeterBinder hibernateMetrics(EntityManagerFactory entityManagerFactory) {
+        return new HibernateMetrics(entityManagerFactory.unwrap(SessionFactory.class), "libapi", Tags.empty());
+    }
+}
@@ -0,0 +1,83 @@
+package com.libapi.config;
+
+import com.libapi.datasource.ReplicationStandIn;
+import com.libapi.datasource.RoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+
+/**
+ * Routes read-only transactions to a read replica when
+ * {@code libapi.datasource.replica.enabled=true}.
+ * <p>
+ * The replica is an in-memory H2 database refreshed from the primary by
+ * {@link ReplicationStandIn}. The application, including JPA and every
+ * {@code JdbcTemplate}, uses the routing data source; only the stand-in
+ * talks to the primary pool directly. The replica is deliberately not a
+ * bean of its own, so that health checks and pool metrics only see the
+ * primary pool and the routing data source.
+ */
+@Configuration
+@ConditionalOnProperty(name = "libapi.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    /**
+     * The primary connection pool, configured through {@code spring.datasource.*}.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicationStandIn replicationStandIn(
+            @Qualifier("primaryDataSource") DataSource primary,
+            DataSourceProperties properties) {
+        return new ReplicationStandIn(primary, properties.determineUsername(), properties.determinePassword());
+    }
+
+    /**
+     * The data source the application uses. Connections are routed when the
+     * first statement runs, by which time the transaction's read-only flag is set.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            ReplicationStandIn replication,
+            MeterRegistry meterRegistry,
+            @Value("${libapi.datasource.replica.max-lag:10s}") Duration maxLag) {
+        RoutingDataSource routing = new RoutingDataSource(primary, replication.getReplica(), maxLag, meterRegistry);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+
+    /**
+     * Give the connection back after every transaction. Hibernate otherwise
+     * holds it for the whole open-in-view session, so a write that follows a
+     * read in the same request would reuse the replica connection.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
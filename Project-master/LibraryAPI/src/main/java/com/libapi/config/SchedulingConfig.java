@@ -0,0 +1,13 @@
+package com.libapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the {@code @Scheduled} jobs: the change feed poll and retention, and
+ * the replica refresh when the replica is enabled.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,76 @@
+package com.libapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Startup-time settings.
+ * <p>
+ * The OpenAPI and Swagger UI beans are created on the first documentation
+ * request instead of at startup. With {@code libapi.startup.exit-when-ready=true}
+ * the application serves one request to itself and exits once it is ready,
+ * which is the training run that records the class data sharing archive of
+ * the {@code fast-startup} Maven profile. The flag is read at runtime rather
+ * than through a condition, because AOT processing fixes conditions at build time.
+ */
+@Configuration
+public class StartupConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupConfig.class);
+
+    /**
+     * Mark every springdoc bean lazy.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "libapi.startup.lazy-docs", havingValue = "true", matchIfMissing = true)
+    public static BeanFactoryPostProcessor lazySpringdocBeans() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                String declaringClass = definition instanceof AnnotatedBeanDefinition annotated
+                        && annotated.getFactoryMethodMetadata() != null
+                        ? annotated.getFactoryMethodMetadata().getDeclaringClassName()
+                        : definition.getBeanClassName();
+                if (declaringClass != null && declaringClass.startsWith("org.springdoc.")) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    @EventListener
+    public void exitWhenReady(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        Environment environment = context.getEnvironment();
+        if (!environment.getProperty("libapi.startup.exit-when-ready", Boolean.class, false)) {
+            return;
+        }
+        String port = environment.getProperty("local.server.port");
+        if (port != null) {
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/books?limit=1")).build();
+                HttpResponse<Void> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding());
+                log.info("Training request answered with {}", response.statusCode());
+            } catch (Exception e) {
+                log.warn("Training request failed", e);
+            }
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+}
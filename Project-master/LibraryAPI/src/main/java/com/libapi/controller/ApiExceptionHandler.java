@@ -0,0 +1,36 @@
+package com.libapi.controller;
+
+import com.libapi.dto.BulkImportResult;
+import com.libapi.service.BulkImportException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Turns service and persistence exceptions into responses.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    /**
+     * Report a failed bulk import together with the rows it committed.
+     */
+    @ExceptionHandler(BulkImportException.class)
+    public ResponseEntity<BulkImportResult> bulkImportFailed(BulkImportException e) {
+        return ResponseEntity.status(e.getStatusCode()).body(e.getResult());
+    }
+
+    /**
+     * Answer a write that lost a race with a concurrent write to the same entity:
+     * 412 if it was conditional, since its If-Match no longer holds, otherwise 409.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> concurrentWrite(WebRequest request) {
+        return ResponseEntity.status(ConditionalRequests.hasIfMatch(request)
+                ? HttpStatus.PRECONDITION_FAILED
+                : HttpStatus.CONFLICT).build();
+    }
+}
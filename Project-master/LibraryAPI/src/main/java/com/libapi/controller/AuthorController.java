@@ -1,11 +1,27 @@
 package com.libapi.controller;
 
+import com.libapi.dto.BatchResult;
+import com.libapi.dto.BulkImportResult;
+import com.libapi.dto.CursorPage;
+import com.libapi.dto.DeleteResult;
+import com.libapi.dto.LinkResult;
+import com.libapi.dto.SearchResult;
 import com.libapi.entity.AuthorEntity;
+import com.libapi.repository.Projection;
 import com.libapi.service.AuthorService;
+import com.libapi.service.BulkImportService;
+import com.libapi.service.ProjectionService;
+import com.libapi.service.SearchIndexService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller for managing author-related operations.
@@ -15,31 +31,123 @@ import java.util.List;
 public class AuthorController {
 
     private final AuthorService authorService;
+    private final BulkImportService bulkImportService;
+    private final SearchIndexService searchIndexService;
+    private final ProjectionService projectionService;
 
     @Autowired
-    public AuthorController(AuthorService authorService) {
+    public AuthorController(
+            AuthorService authorService,
+            BulkImportService bulkImportService,
+            SearchIndexService searchIndexService,
+            ProjectionService projectionService) {
         this.authorService = authorService;
+        this.bulkImportService = bulkImportService;
+        this.searchIndexService = searchIndexService;
+        this.projectionService = projectionService;
     }
 
     /**
-     * Retrieve a list of all authors.
+     * Retrieve a page of authors ordered by id.
      *
-     * @return List of AuthorEntity objects.
+     * @param after The cursor returned with the previous page, omitted for the first page.
+     * @param limit The requested page size.
+     * @param request The current request, used for conditional GETs.
+     * @return A page of AuthorEntity objects, or no body if the client's copy is current.
      */
     @GetMapping
-    public List<AuthorEntity> getAllAuthors() {
-        return authorService.getAllAuthors();
+    public CursorPage<AuthorEntity> getAllAuthors(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        CursorPage<AuthorEntity> page = authorService.getAllAuthors(after, limit);
+        return ConditionalRequests.notModified(request, page) ? null : page;
+    }
+
+    /**
+     * Retrieve a page of authors with only the requested fields, read without loading the entities.
+     *
+     * @param fields Comma-separated field names, some of: id, version, lastModified, name.
+     * @param after The cursor returned with the previous page, omitted for the first page.
+     * @param limit The requested page size.
+     * @param request The current request, used for conditional GETs.
+     * @return A page of authors as field maps, or no body if the client's copy is current.
+     */
+    @GetMapping(params = "fields")
+    public CursorPage<Map<String, Object>> getAllAuthorsFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        CursorPage<Map<String, Object>> page = projectionService.getPage(Projection.AUTHOR, fields, after, limit);
+        return ConditionalRequests.notModified(request, page) ? null : page;
+    }
+
+    /**
+     * Search authors by name, with prefix matching for autocomplete.
+     *
+     * @param q      The search text.
+     * @param offset The offset returned with the previous page, omitted for the first page.
+     * @param limit  The requested page size; {@code offset + limit} may not exceed
+     *               {@link com.libapi.search.TextIndex#MAX_WINDOW}.
+     * @return A page of matching authors, most relevant first.
+     */
+    @GetMapping("/search")
+    public SearchResult searchAuthors(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit) {
+        return searchIndexService.searchAuthors(q, offset, limit);
     }
 
     /**
      * Retrieve an author by their unique identifier.
      *
      * @param id The unique identifier of the author.
-     * @return AuthorEntity object.
+     * @param request The current request, used for conditional GETs.
+     * @return AuthorEntity object, or no body if the client's copy is current.
      */
     @GetMapping("/{id}")
-    public AuthorEntity getAuthorById(@PathVariable Long id) {
-        return authorService.getAuthorById(id);
+    public AuthorEntity getAuthorById(@PathVariable Long id, WebRequest request) {
+        AuthorEntity author = authorService.getAuthorById(id);
+        return ConditionalRequests.notModified(request, author) ? null : author;
+    }
+
+    /**
+     * Retrieve a author with only the requested fields, read without loading the entity.
+     *
+     * @param id The unique identifier of the author.
+     * @param fields Comma-separated field names, some of: id, version, lastModified, name.
+     * @param request The current request, used for conditional GETs.
+     * @return The author as a field map, or no body if not found or the client's copy is current.
+     */
+    @GetMapping(value = "/{id}", params = "fields")
+    public Map<String, Object> getAuthorFieldsById(@PathVariable Long id, @RequestParam String fields, WebRequest request) {
+        Map<String, Object> author = projectionService.getById(Projection.AUTHOR, fields, id);
+        return ConditionalRequests.notModified(request, author) ? null : author;
+    }
+
+    /**
+     * Retrieve many authors by their unique identifiers in one request.
+     *
+     * @param ids The unique identifiers, comma-separated, at most {@link BatchResult#MAX_IDS}.
+     * @return The authors found, in the requested order, and the ids that were not found.
+     */
+    @GetMapping("/batch")
+    public BatchResult<AuthorEntity> getAuthorsByIds(@RequestParam List<Long> ids) {
+        return authorService.getAuthorsByIds(ids);
+    }
+
+    /**
+     * Retrieve many authors by their unique identifiers, with only the requested fields.
+     *
+     * @param ids The unique identifiers, comma-separated, at most {@link BatchResult#MAX_IDS}.
+     * @param fields Comma-separated field names, some of: id, version, lastModified, name.
+     * @return The authors found as field maps, in the requested order, and the ids that were not found.
+     */
+    @GetMapping(value = "/batch", params = "fields")
+    public BatchResult<Map<String, Object>> getAuthorsFieldsByIds(@RequestParam List<Long> ids, @RequestParam String fields) {
+        return projectionService.getByIds(Projection.AUTHOR, fields, ids);
     }
 
     /**
@@ -58,21 +166,50 @@ public class AuthorController {
      *
      * @param id           The unique identifier of the author to be updated.
      * @param authorEntity The updated author entity.
+     * @param request    The current request; an If-Match header makes the update conditional.
      * @return Updated AuthorEntity object.
      */
     @PutMapping("/{id}")
-    public AuthorEntity updateAuthor(@PathVariable Long id, @RequestBody AuthorEntity authorEntity) {
-        return authorService.updateAuthor(id, authorEntity);
+    public AuthorEntity updateAuthor(@PathVariable Long id, @RequestBody AuthorEntity authorEntity, WebRequest request) {
+        return authorService.updateAuthor(id, authorEntity, ConditionalRequests.ifMatch(request));
+    }
+
+    /**
+     * Change the name of an author with a JSON merge patch, such as {@code {"name": "..."}}.
+     * Without If-Match the author is not read, only updated.
+     *
+     * @param id      The unique identifier of the author to be patched.
+     * @param patch   The patch; only name may be set.
+     * @param request The current request; an If-Match header makes the update conditional.
+     * @return 204 No Content, or 404 if not found.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+    public ResponseEntity<Void> patchAuthor(@PathVariable Long id, @RequestBody Map<String, Object> patch, WebRequest request) {
+        return authorService.patchAuthor(id, patch, ConditionalRequests.ifMatch(request))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 
     /**
      * Delete an author by their unique identifier.
      *
      * @param id The unique identifier of the author to be deleted.
+     * @param request The current request; an If-Match header makes the delete conditional.
      */
     @DeleteMapping("/{id}")
-    public void deleteAuthor(@PathVariable Long id) {
-        authorService.deleteAuthor(id);
+    public void deleteAuthor(@PathVariable Long id, WebRequest request) {
+        authorService.deleteAuthor(id, ConditionalRequests.ifMatch(request));
+    }
+
+    /**
+     * Delete many authors in one transaction, removing their links to books.
+     *
+     * @param ids The unique identifiers, comma-separated, at most {@link DeleteResult#MAX_IDS}.
+     * @return The authors deleted and the ids that were not found.
+     */
+    @DeleteMapping("/batch")
+    public DeleteResult deleteAuthors(@RequestParam List<Long> ids) {
+        return authorService.deleteAuthors(ids);
     }
 
     /**
@@ -86,4 +223,55 @@ public class AuthorController {
     public AuthorEntity addBookToAuthor(@PathVariable Long authorId, @PathVariable Long bookId) {
         return authorService.associateBookWithAuthor(authorId, bookId);
     }
+
+    /**
+     * Add many books to an author's collection in one transaction.
+     *
+     * @param authorId The unique identifier of the author.
+     * @param bookIds  JSON array of book ids, at most {@link LinkResult#MAX_IDS}.
+     * @return The outcome for every book, or 404 if the author does not exist.
+     */
+    @PostMapping("/{authorId}/addBooks")
+    public ResponseEntity<LinkResult> addBooksToAuthor(@PathVariable Long authorId, @RequestBody List<Long> bookIds) {
+        LinkResult result = authorService.addBooksToAuthor(authorId, bookIds);
+        return result == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(result);
+    }
+
+    /**
+     * Remove many books from an author's collection in one transaction.
+     *
+     * @param authorId The unique identifier of the author.
+     * @param bookIds  JSON array of book ids, at most {@link LinkResult#MAX_IDS}.
+     * @return The outcome for every book, or 404 if the author does not exist.
+     */
+    @PostMapping("/{authorId}/removeBooks")
+    public ResponseEntity<LinkResult> removeBooksFromAuthor(@PathVariable Long authorId, @RequestBody List<Long> bookIds) {
+        LinkResult result = authorService.removeBooksFromAuthor(authorId, bookIds);
+        return result == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(result);
+    }
+
+    /**
+     * Create many authors from a JSON array or NDJSON body.
+     *
+     * @param body The streamed request body.
+     * @return Number of authors created and the import rate; on failure, the error
+     * and the number of authors committed before it.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkImportResult importAuthors(InputStream body) throws IOException {
+        return bulkImportService.importAuthors(body);
+    }
+
+    /**
+     * Link many books to authors from a JSON array or NDJSON body of {authorId, bookId} pairs.
+     *
+     * @param body The streamed request body.
+     * @return Number of links written and the import rate; on failure, the error
+     * and the number of links committed before it, with status 400 if a link lacks
+     * an id or refers to a missing author or book.
+     */
+    @PostMapping(value = "/links/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkImportResult importBookAuthorLinks(InputStream body) throws IOException {
+        return bulkImportService.importBookAuthorLinks(body);
+    }
 }
@@ -1,11 +1,29 @@
 package com.libapi.controller;
 
+import com.libapi.dto.BatchResult;
+import com.libapi.dto.BulkImportResult;
+import com.libapi.dto.CursorPage;
+import com.libapi.dto.SearchResult;
 import com.libapi.entity.BookEntity;
+import com.libapi.repository.Projection;
 import com.libapi.service.BookService;
+import com.libapi.service.BulkImportService;
+import com.libapi.service.CatalogExportService;
+import com.libapi.service.ProjectionService;
+import com.libapi.service.SearchIndexService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Controller for managing book-related operations.
@@ -15,31 +33,144 @@ import java.util.List;
 public class BookController {
 
     private final BookService bookService;
+    private final BulkImportService bulkImportService;
+    private final CatalogExportService catalogExportService;
+    private final SearchIndexService searchIndexService;
+    private final ProjectionService projectionService;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(
+            BookService bookService,
+            BulkImportService bulkImportService,
+            CatalogExportService catalogExportService,
+            SearchIndexService searchIndexService,
+            ProjectionService projectionService) {
         this.bookService = bookService;
+        this.bulkImportService = bulkImportService;
+        this.catalogExportService = catalogExportService;
+        this.searchIndexService = searchIndexService;
+        this.projectionService = projectionService;
     }
 
     /**
-     * Retrieve a list of all books.
+     * Retrieve a page of books ordered by id.
      *
-     * @return List of BookEntity objects.
+     * @param after The cursor returned with the previous page, omitted for the first page.
+     * @param limit The requested page size.
+     * @param request The current request, used for conditional GETs.
+     * @return A page of BookEntity objects, or no body if the client's copy is current.
      */
     @GetMapping
-    public List<BookEntity> getAllBooks() {
-        return bookService.getAllBooks();
+    public CursorPage<BookEntity> getAllBooks(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        CursorPage<BookEntity> page = bookService.getAllBooks(after, limit);
+        return ConditionalRequests.notModified(request, page) ? null : page;
+    }
+
+    /**
+     * Retrieve a page of books with only the requested fields, read without loading the entities.
+     *
+     * @param fields Comma-separated field names, some of: id, version, lastModified, title, authors.
+     * @param after The cursor returned with the previous page, omitted for the first page.
+     * @param limit The requested page size.
+     * @param request The current request, used for conditional GETs.
+     * @return A page of books as field maps, or no body if the client's copy is current.
+     */
+    @GetMapping(params = "fields")
+    public CursorPage<Map<String, Object>> getAllBooksFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        CursorPage<Map<String, Object>> page = projectionService.getPage(Projection.BOOK, fields, after, limit);
+        return ConditionalRequests.notModified(request, page) ? null : page;
+    }
+
+    /**
+     * Search books by title, with prefix matching for autocomplete.
+     *
+     * @param q      The search text.
+     * @param offset The offset returned with the previous page, omitted for the first page.
+     * @param limit  The requested page size; {@code offset + limit} may not exceed
+     *               {@link com.libapi.search.TextIndex#MAX_WINDOW}.
+     * @return A page of matching books, most relevant first.
+     */
+    @GetMapping("/search")
+    public SearchResult searchBooks(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit) {
+        return searchIndexService.searchBooks(q, offset, limit);
+    }
+
+    /**
+     * Export every book with its author, library and customer ids as NDJSON.
+     * The response is written while the books are read, so it can be arbitrarily large.
+     *
+     * @param gzip Whether to gzip the response body.
+     * @return The streamed export.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam(defaultValue = "false") boolean gzip) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+        if (gzip) {
+            return response
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(out -> catalogExportService.exportBooks(new GZIPOutputStream(out, 64 * 1024)));
+        }
+        return response.body(catalogExportService::exportBooks);
     }
 
     /**
      * Retrieve a book by its unique identifier.
      *
      * @param id The unique identifier of the book.
-     * @return BookEntity object.
+     * @param request The current request, used for conditional GETs.
+     * @return BookEntity object, or no body if the client's copy is current.
      */
     @GetMapping("/{id}")
-    public BookEntity getBookById(@PathVariable Long id) {
-        return bookService.getBookById(id);
+    public BookEntity getBookById(@PathVariable Long id, WebRequest request) {
+        BookEntity book = bookService.getBookById(id);
+        return ConditionalRequests.notModified(request, book) ? null : book;
+    }
+
+    /**
+     * Retrieve a book with only the requested fields, read without loading the entity.
+     *
+     * @param id The unique identifier of the book.
+     * @param fields Comma-separated field names, some of: id, version, lastModified, title, authors.
+     * @param request The current request, used for conditional GETs.
+     * @return The book as a field map, or no body if not found or the client's copy is current.
+     */
+    @GetMapping(value = "/{id}", params = "fields")
+    public Map<String, Object> getBookFieldsById(@PathVariable Long id, @RequestParam String fields, WebRequest request) {
+        Map<String, Object> book = projectionService.getById(Projection.BOOK, fields, id);
+        return ConditionalRequests.notModified(request, book) ? null : book;
+    }
+
+    /**
+     * Retrieve many books by their unique identifiers in one request.
+     *
+     * @param ids The unique identifiers, comma-separated, at most {@link BatchResult#MAX_IDS}.
+     * @return The books found, in the requested order, and the ids that were not found.
+     */
+    @GetMapping("/batch")
+    public BatchResult<BookEntity> getBooksByIds(@RequestParam List<Long> ids) {
+        return bookService.getBooksByIds(ids);
+    }
+
+    /**
+     * Retrieve many books by their unique identifiers, with only the requested fields.
+     *
+     * @param ids The unique identifiers, comma-separated, at most {@link BatchResult#MAX_IDS}.
+     * @param fields Comma-separated field names, some of: id, version, lastModified, title, authors.
+     * @return The books found as field maps, in the requested order, and the ids that were not found.
+     */
+    @GetMapping(value = "/batch", params = "fields")
+    public BatchResult<Map<String, Object>> getBooksFieldsByIds(@RequestParam List<Long> ids, @RequestParam String fields) {
+        return projectionService.getByIds(Projection.BOOK, fields, ids);
     }
 
     /**
@@ -58,20 +189,50 @@ public class BookController {
      *
      * @param id           The unique identifier of the book to be updated.
      * @param bookEntity The updated book entity.
+     * @param request    The current request; an If-Match header makes the update conditional.
      * @return Updated BookEntity object.
      */
     @PutMapping("/{id}")
-    public BookEntity updateBook(@PathVariable Long id, @RequestBody BookEntity bookEntity) {
-        return bookService.updateBook(id, bookEntity);
+    public BookEntity updateBook(@PathVariable Long id, @RequestBody BookEntity bookEntity, WebRequest request) {
+        return bookService.updateBook(id, bookEntity, ConditionalRequests.ifMatch(request));
+    }
+
+    /**
+     * Change the title of a book with a JSON merge patch, such as {@code {"title": "..."}}.
+     * Without If-Match the book is not read, only updated.
+     *
+     * @param id      The unique identifier of the book to be patched.
+     * @param patch   The patch; only title may be set.
+     * @param request The current request; an If-Match header makes the update conditional.
+     * @return 204 No Content, or 404 if not found.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+    public ResponseEntity<Void> patchBook(@PathVariable Long id, @RequestBody Map<String, Object> patch, WebRequest request) {
+        return bookService.patchBook(id, patch, ConditionalRequests.ifMatch(request))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 
     /**
      * Delete a book by its unique identifier.
      *
      * @param id The unique identifier of the book to be deleted.
+     * @param request The current request; an If-Match header makes the delete conditional.
      */
     @DeleteMapping("/{id}")
-    public void deleteBook(@PathVariable Long id) {
-        bookService.deleteBook(id);
+    public void deleteBook(@PathVariable Long id, WebRequest request) {
+        bookService.deleteBook(id, ConditionalRequests.ifMatch(request));
+    }
+
+    /**
+     * Create many books from a JSON array or NDJSON body.
+     *
+     * @param body The streamed request body.
+     * @return Number of books created and the import rate; on failure, the error
+     * and the number of books committed before it.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkImportResult importBooks(InputStream body) throws IOException {
+        return bulkImportService.importBooks(body);
     }
 }
@@ -0,0 +1,56 @@
+package com.libapi.controller;
+
+import com.libapi.dto.ChangeBatch;
+import com.libapi.service.ChangeFeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Controller for the catalog change feed, which tells clients what changed
+ * since they last looked instead of having them reload whole listings.
+ */
+@RestController
+@RequestMapping("/changes")
+public class ChangeController {
+
+    private final ChangeFeedService changeFeedService;
+
+    @Autowired
+    public ChangeController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    /**
+     * Retrieve the changes following a sequence number.
+     *
+     * @param after The lastSequence of the previous batch; omitted to get the current sequence and no changes.
+     * @param limit The requested number of changes.
+     * @return The changes in order, and the sequence to pass as {@code after} next; 410 if they were deleted.
+     */
+    @GetMapping
+    public ChangeBatch getChanges(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        return changeFeedService.getChanges(after, limit);
+    }
+
+    /**
+     * Stream the changes following a sequence number as Server-Sent Events.
+     *
+     * @param after       The last sequence the client has seen; omitted to stream only new changes.
+     * @param lastEventId Sent by reconnecting EventSource clients, and used in place of {@code after}.
+     * @return The stream of {@code changes} events; a {@code reset} event ends it if the client fell too far behind.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) Long after,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeFeedService.subscribe(lastEventId != null ? lastEventId : after);
+    }
+}
@@ -0,0 +1,219 @@
+package com.libapi.controller;
+
+import com.libapi.dto.CursorPage;
+import com.libapi.dto.ProjectedRow;
+import com.libapi.entity.AuthorEntity;
+import com.libapi.entity.BookEntity;
+import com.libapi.entity.CustomerEntity;
+import com.libapi.entity.LibraryEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * ETag, Last-Modified and If-Match handling for the entity endpoints.
+ * <p>
+ * ETags are derived from the ids and versions of every entity in the
+ * response, so they are computed without serializing it and change whenever
+ * any entity the response renders is updated.
+ * <p>
+ * The tags are weak, {@code W/"<versions>-<format>"}: Tomcat does not compress
+ * responses that carry a strong ETag, and a compressed body is not the same
+ * bytes anyway. The format is the subtype of the media type negotiated from
+ * Accept, so JSON, CBOR and Smile responses get different validators. If-Match
+ * only compares the versions part, because a write may negotiate another format
+ * than the read that returned the tag, and the versions identify the entity exactly.
+ */
+final class ConditionalRequests {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Formats the entity endpoints produce, the default first.
+     */
+    private static final List<MediaType> FORMATS = List.of(
+            MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR,
+            new MediaType("application", "x-jackson-smile"));
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Answer a GET with 304 Not Modified if the client already has this representation,
+     * otherwise add the ETag and Last-Modified headers.
+     *
+     * @param request The current request.
+     * @param body    The entity or page about to be returned, may be null.
+     * @return true if the response is a 304 and the body must not be written.
+     */
+    static boolean notModified(WebRequest request, Object body) {
+        return body != null && request.checkNotModified(etag(request, body), lastModified(body));
+    }
+
+    /**
+     * Whether a write is conditional.
+     */
+    static boolean hasIfMatch(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_MATCH) != null;
+    }
+
+    /**
+     * The If-Match condition of a write, for the service to test against the
+     * entity as read inside the write's transaction rather than a cached copy.
+     *
+     * @param request The current request.
+     * @return Whether an entity matches one of the request's If-Match tags, or null if the request has none.
+     */
+    static <T> Predicate<T> ifMatch(WebRequest request) {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch == null) {
+            return null;
+        }
+        return current -> {
+            String versions = versions(current);
+            for (String candidate : ifMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || versions.equals(versionsOf(tag))) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Weak ETag of an entity or page of entities in the format negotiated for the request.
+     */
+    static String etag(WebRequest request, Object body) {
+        return "W/\"" + versions(body) + "-" + format(request).getSubtype() + "\"";
+    }
+
+    /**
+     * The format the response is written in: the one the client prefers among
+     * {@link #FORMATS}, judged by the most specific Accept range covering each.
+     */
+    static MediaType format(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return FORMATS.get(0);
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return FORMATS.get(0);
+        }
+        MediaType best = FORMATS.get(0);
+        double bestQuality = 0;
+        for (MediaType format : FORMATS) {
+            double quality = 0;
+            int specificity = -1;
+            for (MediaType range : accepted) {
+                int rangeSpecificity = (range.isWildcardType() ? 0 : 1) + (range.isWildcardSubtype() ? 0 : 1);
+                if (range.includes(format) && rangeSpecificity > specificity) {
+                    quality = range.getQualityValue();
+                    specificity = rangeSpecificity;
+                }
+            }
+            if (quality > bestQuality) {
+                best = format;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Last modification time of an author, or -1 for every other response.
+     * <p>
+     * Books, customers, libraries and pages render other entities. Removing
+     * one of those changes neither the owner nor the entities that remain, so
+     * no timestamp in the response would move. Their ETag covers the ids of
+     * everything rendered, so they are validated by it alone.
+     */
+    static long lastModified(Object body) {
+        if (body instanceof AuthorEntity author) {
+            return millis(author.getLastModified());
+        }
+        return -1;
+    }
+
+    private static String versions(Object body) {
+        return Long.toHexString(hash(FNV_OFFSET, body));
+    }
+
+    /**
+     * The versions part of an ETag, whatever its format and strength.
+     */
+    private static String versionsOf(String tag) {
+        String opaque = tag.startsWith("W/") ? tag.substring(2) : tag;
+        if (opaque.length() >= 2 && opaque.startsWith("\"") && opaque.endsWith("\"")) {
+            opaque = opaque.substring(1, opaque.length() - 1);
+        }
+        int format = opaque.indexOf('-');
+        return format < 0 ? opaque : opaque.substring(0, format);
+    }
+
+    private static long hash(long hash, Object value) {
+        if (value instanceof BookEntity book) {
+            hash = mix(mix(hash, book.getId()), book.getVersion());
+            return hashAll(hash, book.getAuthors());
+        }
+        if (value instanceof AuthorEntity author) {
+            return mix(mix(hash, author.getId()), author.getVersion());
+        }
+        if (value instanceof CustomerEntity customer) {
+            hash = mix(mix(hash, customer.getId()), customer.getVersion());
+            return hashAll(hash, customer.getBooks());
+        }
+        if (value instanceof LibraryEntity library) {
+            hash = mix(mix(hash, library.getId()), library.getVersion());
+            return hashAll(hash, library.getBooks());
+        }
+        if (value instanceof ProjectedRow row) {
+            hash = mix(mix(hash, row.getId()), row.getVersion());
+            for (Object field : row.values()) {
+                if (field instanceof Collection<?> associated) {
+                    hash = hashAll(hash, associated);
+                }
+            }
+            return hash;
+        }
+        if (value instanceof CursorPage<?> page) {
+            return mix(hashAll(hash, page.getItems()), page.getNextCursor());
+        }
+        return mix(hash, value == null ? null : (long) value.hashCode());
+    }
+
+    private static long hashAll(long hash, Collection<?> values) {
+        if (values == null) {
+            return mix(hash, null);
+        }
+        hash = mix(hash, (long) values.size());
+        for (Object value : values) {
+            hash = hash(hash, value);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, Long value) {
+        long bits = value == null ? -1L : value;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash ^= (bits >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long millis(Instant instant) {
+        return instant == null ? -1 : instant.toEpochMilli();
+    }
+}
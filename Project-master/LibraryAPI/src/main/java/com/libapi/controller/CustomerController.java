@@ -1,11 +1,21 @@
 package com.libapi.controller;
 
+import com.libapi.dto.BatchResult;
+import com.libapi.dto.CursorPage;
+import com.libapi.dto.DeleteResult;
+import com.libapi.dto.LinkResult;
 import com.libapi.entity.CustomerEntity;
+import com.libapi.repository.Projection;
 import com.libapi.service.CustomerService;
+import com.libapi.service.ProjectionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller for managing customer-related operations.
@@ -15,31 +25,98 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final ProjectionService projectionService;
 
     @Autowired
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, ProjectionService projectionService) {
         this.customerService = customerService;
+        this.projectionService = projectionService;
     }
 
     /**
-     * Retrieve a list of all customers.
+     * Retrieve a page of customers ordered by id.
      *
-     * @return List of CustomerEntity objects.
+     * @param after The cursor returned with the previous page, omitted for the first page.
+     * @param limit The requested page size.
+     * @param request The current request, used for conditional GETs.
+     * @return A page of CustomerEntity objects, or no body if the client's copy is current.
      */
     @GetMapping
-    public List<CustomerEntity> getAllCustomers() {
-        return customerService.getAllCustomers();
+    public CursorPage<CustomerEntity> getAllCustomers(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        CursorPage<CustomerEntity> page = customerService.getAllCustomers(after, limit);
+        return ConditionalRequests.notModified(request, page) ? null : page;
+    }
+
+    /**
+     * Retrieve a page of customers with only the requested fields, read without loading the entities.
+     *
+     * @param fields Comma-separated field names, some of: id, version, lastModified, name, books.
+     * @param after The cursor returned with the previous page, omitted for the first page.
+     * @param limit The requested page size.
+     * @param request The current request, used for conditional GETs.
+     * @return A page of customers as field maps, or no body if the client's copy is current.
+     */
+    @GetMapping(params = "fields")
+    public CursorPage<Map<String, Object>> getAllCustomersFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        CursorPage<Map<String, Object>> page = projectionService.getPage(Projection.CUSTOMER, fields, after, limit);
+        return ConditionalRequests.notModified(request, page) ? null : page;
     }
 
     /**
      * Retrieve a customer by their unique identifier.
      *
      * @param id The unique identifier of the customer.
-     * @return CustomerEntity object.
+     * @param request The current request, used for conditional GETs.
+     * @return CustomerEntity object, or no body if the client's copy is current.
      */
     @GetMapping("/{id}")
-    public CustomerEntity getCustomerById(@PathVariable Long id) {
-        return customerService.getCustomerById(id);
+    public CustomerEntity getCustomerById(@PathVariable Long id, WebRequest request) {
+        CustomerEntity customer = customerService.getCustomerById(id);
+        return ConditionalRequests.notModified(request, customer) ? null : customer;
+    }
+
+    /**
+     * Retrieve a customer with only the requested fields, read without loading the entity.
+     *
+     * @param id The unique identifier of the customer.
+     * @param fields Comma-separated field names, some of: id, version, lastModified, name, books.
+     * @param request The current request, used for conditional GETs.
+     * @return The customer as a field map, or no body if not found or the client's copy is current.
+     */
+    @GetMapping(value = "/{id}", params = "fields")
+    public Map<String, Object> getCustomerFieldsById(@PathVariable Long id, @RequestParam String fields, WebRequest request) {
+        Map<String, Object> customer = projectionService.getById(Projection.CUSTOMER, fields, id);
+        return ConditionalRequests.notModified(request, customer) ? null : customer;
+    }
+
+    /**
+     * Retrieve many customers by their unique identifiers in one request.
+     *
+     * @param ids The unique identifiers, comma-separated, at most {@link BatchResult#MAX_IDS}.
+     * @return The customers found, in the requested order, and the ids that were not found.
+     */
+    @GetMapping("/batch")
+    public BatchResult<CustomerEntity> getCustomersByIds(@RequestParam List<Long> ids) {
+        return customerService.getCustomersByIds(ids);
+    }
+
+    /**
+     * Retrieve many customers by their unique identifiers, with only the requested fields.
+     *
+     * @param ids The unique identifiers, comma-separated, at most {@link BatchResult#MAX_IDS}.
+     * @param fields Comma-separated field names, some of: id, version, lastModified, name, books.
+     * @return The customers found as field maps, in the requested order, and the ids that were not found.
+     */
+    @GetMapping(value = "/batch", params = "fields")
+    public BatchResult<Map<String, Object>> getCustomersFieldsByIds(@RequestParam List<Long> ids, @RequestParam String fields) {
+        return projectionService.getByIds(Projection.CUSTOMER, fields, ids);
     }
 
     /**
@@ -58,21 +135,50 @@ public class CustomerController {
      *
      * @param id             The unique identifier of the customer to be updated.
      * @param customerEntity The updated customer entity.
+     * @param request    The current request; an If-Match header makes the update conditional.
      * @return Updated CustomerEntity object.
      */
     @PutMapping("/{id}")
-    public CustomerEntity updateCustomer(@PathVariable Long id, @RequestBody CustomerEntity customerEntity) {
-        return customerService.updateCustomer(id, customerEntity);
+    public CustomerEntity updateCustomer(@PathVariable Long id, @RequestBody CustomerEntity customerEntity, WebRequest request) {
+        return customerService.updateCustomer(id, customerEntity, ConditionalRequests.ifMatch(request));
+    }
+
+    /**
+     * Change the name of a customer with a JSON merge patch, such as {@code {"name": "..."}}.
+     * Without If-Match the customer is not read, only updated.
+     *
+     * @param id      The unique identifier of the customer to be patched.
+     * @param patch   The patch; only name may be set.
+     * @param request The current request; an If-Match header makes the update conditional.
+     * @return 204 No Content, or 404 if not found.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+    public ResponseEntity<Void> patchCustomer(@PathVariable Long id, @RequestBody Map<String, Object> patch, WebRequest request) {
+        return customerService.patchCustomer(id, patch, ConditionalRequests.ifMatch(request))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 
     /**
      * Delete a customer by their unique identifier.
      *
      * @param id The unique identifier of the customer to be deleted.
+     * @param request The current request; an If-Match header makes the delete conditional.
      */
     @DeleteMapping("/{id}")
-    public void deleteCustomer(@PathVariable Long id) {
-        customerService.deleteCustomer(id);
+    public void deleteCustomer(@PathVariable Long id, WebRequest request) {
+        customerService.deleteCustomer(id, ConditionalRequests.ifMatch(request));
+    }
+
+    /**
+     * Delete many customers in one transaction, marking the books they borrowed returned.
+     *
+     * @param ids The unique identifiers, comma-separated, at most {@link DeleteResult#MAX_IDS}.
+     * @return The customers deleted and the ids that were not found.
+     */
+    @DeleteMapping("/batch")
+    public DeleteResult deleteCustomers(@RequestParam List<Long> ids) {
+        return customerService.deleteCustomers(ids);
     }
 
     /**
@@ -86,4 +192,58 @@ public class CustomerController {
     public CustomerEntity addBookToCustomer(@PathVariable Long customerId, @PathVariable Long bookId) {
         return customerService.addBookToCustomer(customerId, bookId);
     }
+
+    /**
+     * Lend a book to a customer.
+     *
+     * @param customerId The unique identifier of the customer.
+     * @param bookId     The unique identifier of the book.
+     * @return 204 if lent, 404 if either does not exist, 409 if the book is lent to someone else.
+     */
+    @PostMapping("/{customerId}/checkout/{bookId}")
+    public ResponseEntity<Void> checkOutBook(@PathVariable Long customerId, @PathVariable Long bookId) {
+        return customerService.checkOutBook(customerId, bookId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Take a book back from a customer.
+     *
+     * @param customerId The unique identifier of the customer.
+     * @param bookId     The unique identifier of the book.
+     * @return 204 if returned, 404 if either does not exist, 409 if the customer does not have the book.
+     */
+    @PostMapping("/{customerId}/return/{bookId}")
+    public ResponseEntity<Void> returnBook(@PathVariable Long customerId, @PathVariable Long bookId) {
+        return customerService.returnBook(customerId, bookId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Lend many books to a customer in one transaction. Books lent to someone else are reported as conflicts.
+     *
+     * @param customerId The unique identifier of the customer.
+     * @param bookIds    JSON array of book ids, at most {@link LinkResult#MAX_IDS}.
+     * @return The outcome for every book, or 404 if the customer does not exist.
+     */
+    @PostMapping("/{customerId}/checkout")
+    public ResponseEntity<LinkResult> checkOutBooks(@PathVariable Long customerId, @RequestBody List<Long> bookIds) {
+        LinkResult result = customerService.checkOutBooks(customerId, bookIds);
+        return result == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(result);
+    }
+
+    /**
+     * Take many books back from a customer in one transaction. Books the customer does not have are reported as conflicts.
+     *
+     * @param customerId The unique identifier of the customer.
+     * @param bookIds    JSON array of book ids, at most {@link LinkResult#MAX_IDS}.
+     * @return The outcome for every book, or 404 if the customer does not exist.
+     */
+    @PostMapping("/{customerId}/return")
+    public ResponseEntity<LinkResult> returnBooks(@PathVariable Long customerId, @RequestBody List<Long> bookIds) {
+        LinkResult result = customerService.returnBooks(customerId, bookIds);
+        return result == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(result);
+    }
 }
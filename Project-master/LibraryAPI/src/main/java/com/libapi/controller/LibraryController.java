@@ -1,11 +1,21 @@
 package com.libapi.controller;
 
+import com.libapi.dto.BatchResult;
+import com.libapi.dto.CursorPage;
+import com.libapi.dto.DeleteResult;
+import com.libapi.dto.LinkResult;
 import com.libapi.entity.LibraryEntity;
+import com.libapi.repository.Projection;
 import com.libapi.service.LibraryService;
+import com.libapi.service.ProjectionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller for managing library-related operations.
@@ -15,20 +25,48 @@ import java.util.List;
 public class LibraryController {
 
     private final LibraryService libraryService;
+    private final ProjectionService projectionService;
 
     @Autowired
-    public LibraryController(LibraryService libraryService) {
+    public LibraryController(LibraryService libraryService, ProjectionService projectionService) {
         this.libraryService = libraryService;
+        this.projectionService = projectionService;
     }
 
     /**
-     * Retrieve a list of all libraries.
+     * Retrieve a page of libraries ordered by id.
      *
-     * @return List of LibraryEntity objects.
+     * @param after The cursor returned with the previous page, omitted for the first page.
+     * @param limit The requested page size.
+     * @param request The current request, used for conditional GETs.
+     * @return A page of LibraryEntity objects, or no body if the client's copy is current.
      */
     @GetMapping
-    public List<LibraryEntity> getAllLibraries() {
-        return libraryService.getAllLibraries();
+    public CursorPage<LibraryEntity> getAllLibraries(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        CursorPage<LibraryEntity> page = libraryService.getAllLibraries(after, limit);
+        return ConditionalRequests.notModified(request, page) ? null : page;
+    }
+
+    /**
+     * Retrieve a page of libraries with only the requested fields, read without loading the entities.
+     *
+     * @param fields Comma-separated field names, some of: id, version, lastModified, name, books.
+     * @param after The cursor returned with the previous page, omitted for the first page.
+     * @param limit The requested page size.
+     * @param request The current request, used for conditional GETs.
+     * @return A page of libraries as field maps, or no body if the client's copy is current.
+     */
+    @GetMapping(params = "fields")
+    public CursorPage<Map<String, Object>> getAllLibrariesFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        CursorPage<Map<String, Object>> page = projectionService.getPage(Projection.LIBRARY, fields, after, limit);
+        return ConditionalRequests.notModified(request, page) ? null : page;
     }
 
     /**
@@ -47,15 +85,80 @@ public class LibraryController {
                 bookId);
     }
 
+    /**
+     * Shelve many books in a library in one transaction, moving them from any other library.
+     *
+     * @param libraryId The unique identifier of the library.
+     * @param bookIds   JSON array of book ids, at most {@link LinkResult#MAX_IDS}.
+     * @return The outcome for every book, or 404 if the library does not exist.
+     */
+    @PostMapping("/{libraryId}/addBooks")
+    public ResponseEntity<LinkResult> addBooksToLibrary(@PathVariable Long libraryId, @RequestBody List<Long> bookIds) {
+        LinkResult result = libraryService.addBooksToLibrary(libraryId, bookIds);
+        return result == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(result);
+    }
+
+    /**
+     * Take many books off a library's shelves in one transaction.
+     *
+     * @param libraryId The unique identifier of the library.
+     * @param bookIds   JSON array of book ids, at most {@link LinkResult#MAX_IDS}.
+     * @return The outcome for every book, or 404 if the library does not exist.
+     */
+    @PostMapping("/{libraryId}/removeBooks")
+    public ResponseEntity<LinkResult> removeBooksFromLibrary(@PathVariable Long libraryId, @RequestBody List<Long> bookIds) {
+        LinkResult result = libraryService.removeBooksFromLibrary(libraryId, bookIds);
+        return result == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(result);
+    }
+
     /**
      * Retrieve a library by its unique identifier.
      *
      * @param id The unique identifier of the library.
-     * @return LibraryEntity object.
+     * @param request The current request, used for conditional GETs.
+     * @return LibraryEntity object, or no body if the client's copy is current.
      */
     @GetMapping("/{id}")
-    public LibraryEntity getLibraryById(@PathVariable Long id) {
-        return libraryService.getLibraryById(id);
+    public LibraryEntity getLibraryById(@PathVariable Long id, WebRequest request) {
+        LibraryEntity library = libraryService.getLibraryById(id);
+        return ConditionalRequests.notModified(request, library) ? null : library;
+    }
+
+    /**
+     * Retrieve a library with only the requested fields, read without loading the entity.
+     *
+     * @param id The unique identifier of the library.
+     * @param fields Comma-separated field names, some of: id, version, lastModified, name, books.
+     * @param request The current request, used for conditional GETs.
+     * @return The library as a field map, or no body if not found or the client's copy is current.
+     */
+    @GetMapping(value = "/{id}", params = "fields")
+    public Map<String, Object> getLibraryFieldsById(@PathVariable Long id, @RequestParam String fields, WebRequest request) {
+        Map<String, Object> library = projectionService.getById(Projection.LIBRARY, fields, id);
+        return ConditionalRequests.notModified(request, library) ? null : library;
+    }
+
+    /**
+     * Retrieve many libraries by their unique identifiers in one request.
+     *
+     * @param ids The unique identifiers, comma-separated, at most {@link BatchResult#MAX_IDS}.
+     * @return The libraries found, in the requested order, and the ids that were not found.
+     */
+    @GetMapping("/batch")
+    public BatchResult<LibraryEntity> getLibrariesByIds(@RequestParam List<Long> ids) {
+        return libraryService.getLibrariesByIds(ids);
+    }
+
+    /**
+     * Retrieve many libraries by their unique identifiers, with only the requested fields.
+     *
+     * @param ids The unique identifiers, comma-separated, at most {@link BatchResult#MAX_IDS}.
+     * @param fields Comma-separated field names, some of: id, version, lastModified, name, books.
+     * @return The libraries found as field maps, in the requested order, and the ids that were not found.
+     */
+    @GetMapping(value = "/batch", params = "fields")
+    public BatchResult<Map<String, Object>> getLibrariesFieldsByIds(@RequestParam List<Long> ids, @RequestParam String fields) {
+        return projectionService.getByIds(Projection.LIBRARY, fields, ids);
     }
 
     /**
@@ -74,20 +177,53 @@ public class LibraryController {
      *
      * @param id             The unique identifier of the library to be updated.
      * @param libraryEntity The updated library entity.
+     * @param request    The current request; an If-Match header makes the update conditional.
      * @return Updated LibraryEntity object.
      */
     @PutMapping("/{id}")
-    public LibraryEntity updateLibrary(@PathVariable Long id, @RequestBody LibraryEntity libraryEntity) {
-        return libraryService.updateLibrary(id, libraryEntity);
+    public LibraryEntity updateLibrary(@PathVariable Long id, @RequestBody LibraryEntity libraryEntity, WebRequest request) {
+        return libraryService.updateLibrary(id, libraryEntity, ConditionalRequests.ifMatch(request));
     }
 
     /**
-     * Delete a library by its unique identifier.
+     * Change the name of a library with a JSON merge patch, such as {@code {"name": "..."}}.
+     * Without If-Match the library is not read, only updated.
+     *
+     * @param id      The unique identifier of the library to be patched.
+     * @param patch   The patch; only name may be set.
+     * @param request The current request; an If-Match header makes the update conditional.
+     * @return 204 No Content, or 404 if not found.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+    public ResponseEntity<Void> patchLibrary(@PathVariable Long id, @RequestBody Map<String, Object> patch, WebRequest request) {
+        return libraryService.patchLibrary(id, patch, ConditionalRequests.ifMatch(request))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Delete a library by its unique identifier, taking its books off its shelves
+     * or moving them to another library. The books are not loaded.
      *
      * @param id The unique identifier of the library to be deleted.
+     * @param reassignTo The unique identifier of the library receiving the books, omitted to leave them unshelved.
+     * @param request The current request; an If-Match header makes the delete conditional.
      */
     @DeleteMapping("/{id}")
-    public void deleteLibrary(@PathVariable Long id) {
-        libraryService.deleteLibrary(id);
+    public void deleteLibrary(@PathVariable Long id, @RequestParam(required = false) Long reassignTo, WebRequest request) {
+        libraryService.deleteLibrary(id, ConditionalRequests.ifMatch(request), reassignTo);
+    }
+
+    /**
+     * Delete many libraries in one transaction, taking their books off the shelves
+     * or moving them to another library.
+     *
+     * @param ids The unique identifiers, comma-separated, at most {@link DeleteResult#MAX_IDS}.
+     * @param reassignTo The unique identifier of the library receiving the books, omitted to leave them unshelved.
+     * @return The libraries deleted and the ids that were not found.
+     */
+    @DeleteMapping("/batch")
+    public DeleteResult deleteLibraries(@RequestParam List<Long> ids, @RequestParam(required = false) Long reassignTo) {
+        return libraryService.deleteLibraries(ids, reassignTo);
     }
 }
@@ -0,0 +1,79 @@
+package com.libapi.controller;
+
+import com.libapi.dto.CatalogTotals;
+import com.libapi.dto.CountStats;
+import com.libapi.dto.CursorPage;
+import com.libapi.dto.LibraryStats;
+import com.libapi.service.StatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller exposing catalog statistics computed in the database.
+ */
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final StatsService statsService;
+
+    @Autowired
+    public StatsController(StatsService statsService) {
+        this.statsService = statsService;
+    }
+
+    /**
+     * Retrieve catalog-wide totals and availability.
+     *
+     * @return CatalogTotals object.
+     */
+    @GetMapping
+    public CatalogTotals getTotals() {
+        return statsService.getTotals();
+    }
+
+    /**
+     * Retrieve a page of book counts per library.
+     *
+     * @param after The cursor returned with the previous page, omitted for the first page.
+     * @param limit The requested page size.
+     * @return A page of LibraryStats objects.
+     */
+    @GetMapping("/libraries")
+    public CursorPage<LibraryStats> getLibraryStats(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        return statsService.getLibraryStats(after, limit);
+    }
+
+    /**
+     * Retrieve a page of lent-book counts per customer.
+     *
+     * @param after The cursor returned with the previous page, omitted for the first page.
+     * @param limit The requested page size.
+     * @return A page of CountStats objects.
+     */
+    @GetMapping("/customers")
+    public CursorPage<CountStats> getCustomerStats(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        return statsService.getCustomerStats(after, limit);
+    }
+
+    /**
+     * Retrieve a page of title counts per author.
+     *
+     * @param after The cursor returned with the previous page, omitted for the first page.
+     * @param limit The requested page size.
+     * @return A page of CountStats objects.
+     */
+    @GetMapping("/authors")
+    public CursorPage<CountStats> getAuthorStats(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        return statsService.getAuthorStats(after, limit);
+    }
+}
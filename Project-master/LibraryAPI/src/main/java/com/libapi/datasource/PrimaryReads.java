@@ -0,0 +1,47 @@
+package com.libapi.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps reads on the primary when their result outlives the request, such as
+ * entities put into the cache.
+ * <p>
+ * A cached result is served for the whole TTL without going through
+ * {@link RoutingDataSource} again, so neither the allowed replica lag nor
+ * {@link ReadYourWrites} would apply to it. Loading it from the primary
+ * instead means a cached entity is never older than the write that last
+ * evicted it. Without a replica this has no effect.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    /**
+     * Run a read whose connections are all taken from the primary.
+     *
+     * @param read The read; its transaction may begin inside or outside this call,
+     *             as long as its first statement runs inside it.
+     * @return The result of the read.
+     */
+    public static <T> T call(Supplier<T> read) {
+        if (ACTIVE.get() != null) {
+            return read.get();
+        }
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    /**
+     * Whether the current thread is running a read that must use the primary.
+     */
+    static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+}
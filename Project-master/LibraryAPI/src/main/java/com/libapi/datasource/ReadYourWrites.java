@@ -0,0 +1,82 @@
+package com.libapi.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Keeps a client's reads on the primary until the replica has caught up with its own writes.
+ * <p>
+ * When a write transaction commits during a request, the commit time is
+ * returned in the {@value #HEADER} response header. A client that sends the
+ * header back is served from the replica only once the replica's snapshot
+ * is at least that recent. Reads later in the same request are held to the
+ * same rule.
+ */
+public final class ReadYourWrites {
+
+    /**
+     * Response and request header carrying the epoch millis of the client's latest write.
+     */
+    public static final String HEADER = "X-Write-Watermark";
+
+    private static final String ATTRIBUTE = ReadYourWrites.class.getName() + ".watermark";
+
+    private ReadYourWrites() {
+    }
+
+    /**
+     * Epoch millis the replica must have reached to serve the current request, or -1 if any snapshot will do.
+     */
+    static long requiredWatermark() {
+        HttpServletRequest request = currentRequest();
+        if (request == null) {
+            return -1;
+        }
+        long watermark = -1;
+        if (request.getAttribute(ATTRIBUTE) instanceof Long written) {
+            watermark = written;
+        }
+        String header = request.getHeader(HEADER);
+        if (header != null) {
+            try {
+                watermark = Math.max(watermark, Long.parseLong(header.trim()));
+            } catch (NumberFormatException ignored) {
+                // A malformed watermark is treated as absent
+            }
+        }
+        return watermark;
+    }
+
+    /**
+     * Record the commit of the current write transaction as the request's watermark.
+     */
+    static void recordOnCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || currentRequest() == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                long committedAt = System.currentTimeMillis();
+                if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+                    attributes.setAttribute(ATTRIBUTE, committedAt, RequestAttributes.SCOPE_REQUEST);
+                    HttpServletResponse response = attributes.getResponse();
+                    if (response != null && !response.isCommitted()) {
+                        response.setHeader(HEADER, Long.toString(committedAt));
+                    }
+                }
+            }
+        });
+    }
+
+    private static HttpServletRequest currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest()
+                : null;
+    }
+}
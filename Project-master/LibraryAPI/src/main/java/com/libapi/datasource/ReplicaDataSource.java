@@ -0,0 +1,76 @@
+package com.libapi.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The read replica, together with the time of the primary snapshot it holds.
+ * <p>
+ * Each synchronization installs a new replica database; connections already
+ * open on the previous one keep working until they are closed.
+ */
+public class ReplicaDataSource extends AbstractDataSource {
+
+    private volatile Generation current;
+
+    /**
+     * Switch to a freshly loaded replica.
+     *
+     * @param dataSource The replica database, or null to take the replica out of service.
+     * @param syncedAt   Epoch millis at which the primary snapshot it was loaded from was taken.
+     * @return The replica database that was in use until now, or null for the first one.
+     */
+    public DataSource install(DataSource dataSource, long syncedAt) {
+        Generation previous = current;
+        current = dataSource == null ? null : new Generation(dataSource, syncedAt);
+        return previous == null ? null : previous.dataSource;
+    }
+
+    /**
+     * Epoch millis of the primary snapshot the replica holds, or -1 before the first synchronization.
+     */
+    public long getSyncedAt() {
+        Generation generation = current;
+        return generation == null ? -1 : generation.syncedAt;
+    }
+
+    /**
+     * How far the replica is behind the primary, in milliseconds, or NaN before the first synchronization.
+     */
+    public double lagMillis() {
+        long syncedAt = getSyncedAt();
+        return syncedAt < 0 ? Double.NaN : System.currentTimeMillis() - syncedAt;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return target().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target().getConnection(username, password);
+    }
+
+    private DataSource target() throws SQLException {
+        Generation generation = current;
+        if (generation == null) {
+            throw new SQLException("The replica has not been synchronized yet");
+        }
+        return generation.dataSource;
+    }
+
+    private static final class Generation {
+
+        private final DataSource dataSource;
+        private final long syncedAt;
+
+        private Generation(DataSource dataSource, long syncedAt) {
+            this.dataSource = dataSource;
+            this.syncedAt = syncedAt;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.libapi.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local substitute for database replication: periodically copies the primary
+ * H2 database into a fresh in-memory H2 database and installs it as the replica.
+ * <p>
+ * The copy is a full {@code SCRIPT}/{@code RUNSCRIPT} round trip, so the
+ * replica lags the primary by up to the sync interval plus the copy time,
+ * much like an asynchronous replica. The replica it replaces is shut down
+ * one interval later, once reads still running on it have finished.
+ */
+public class ReplicationStandIn implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationStandIn.class);
+
+    private final JdbcTemplate primary;
+    private final ReplicaDataSource replica;
+    private final String username;
+    private final String password;
+    private final AtomicLong generation = new AtomicLong();
+
+    private DataSource retired;
+
+    public ReplicationStandIn(DataSource primary, String username, String password) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new ReplicaDataSource();
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * The replica this stand-in keeps up to date.
+     */
+    public ReplicaDataSource getReplica() {
+        return replica;
+    }
+
+    /**
+     * Load a new snapshot of the primary into the replica.
+     */
+    @Scheduled(fixedDelayString = "${libapi.datasource.replica.sync-interval:PT5S}")
+    public synchronized void sync() throws IOException {
+        Path script = Files.createTempFile("libapi-replica-", ".sql");
+        try {
+            long snapshotAt = System.currentTimeMillis();
+            primary.execute("SCRIPT TO '" + quote(script) + "'");
+
+            String url = "jdbc:h2:mem:libapi_replica_" + generation.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+            DataSource next = new DriverManagerDataSource(url, username, password);
+            new JdbcTemplate(next).execute("RUNSCRIPT FROM '" + quote(script) + "'");
+
+            shutdown(retired);
+            retired = replica.install(next, snapshotAt);
+            log.debug("Replica {} loaded in {} ms", url, System.currentTimeMillis() - snapshotAt);
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        shutdown(retired);
+        shutdown(replica.install(null, -1));
+    }
+
+    private static void shutdown(DataSource dataSource) {
+        if (dataSource != null) {
+            new JdbcTemplate(dataSource).execute("SHUTDOWN");
+        }
+    }
+
+    private static String quote(Path path) {
+        return path.toAbsolutePath().toString().replace("'", "''");
+    }
+}
@@ -0,0 +1,105 @@
+package com.libapi.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the connections of read-only transactions to the replica and all others to the primary.
+ * <p>
+ * A read-only transaction still goes to the primary when the replica is
+ * further behind than the allowed lag, or has not caught up with the
+ * client's own writes (see {@link ReadYourWrites}), or when its result is
+ * cached (see {@link PrimaryReads}). The decision is taken
+ * when the physical connection is obtained, so this data source must sit
+ * behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the transaction's read-only flag is only known after it has begun.
+ * <p>
+ * Every decision is counted in {@code libapi.datasource.connections}, tagged
+ * with the route and the reason, and the replica lag is published as
+ * {@code libapi.datasource.replica.lag}.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Where a connection is sent.
+     */
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    /**
+     * Why a connection is sent where it is.
+     */
+    enum Reason {
+        WRITE(Route.PRIMARY),
+        READ(Route.REPLICA),
+        REPLICA_LAGGING(Route.PRIMARY),
+        READ_YOUR_WRITES(Route.PRIMARY),
+        CACHED_READ(Route.PRIMARY);
+
+        private final Route route;
+
+        Reason(Route route) {
+            this.route = route;
+        }
+    }
+
+    private final ReplicaDataSource replica;
+    private final long maxLagMillis;
+    private final Map<Reason, Counter> connections = new EnumMap<>(Reason.class);
+
+    public RoutingDataSource(DataSource primary, ReplicaDataSource replica, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.maxLagMillis = maxLag.toMillis();
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+
+        for (Reason reason : Reason.values()) {
+            connections.put(reason, Counter.builder("libapi.datasource.connections")
+                    .description("Connections handed out, by route and the reason for the route")
+                    .tag("route", reason.route.name().toLowerCase(Locale.ROOT))
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        TimeGauge.builder("libapi.datasource.replica.lag", replica, TimeUnit.MILLISECONDS, ReplicaDataSource::lagMillis)
+                .description("Age of the primary snapshot the replica serves")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Reason reason = decide();
+        connections.get(reason).increment();
+        return reason.route;
+    }
+
+    private Reason decide() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            ReadYourWrites.recordOnCommit();
+            return Reason.WRITE;
+        }
+        if (PrimaryReads.isActive()) {
+            return Reason.CACHED_READ;
+        }
+        long syncedAt = replica.getSyncedAt();
+        if (syncedAt < 0 || System.currentTimeMillis() - syncedAt > maxLagMillis) {
+            return Reason.REPLICA_LAGGING;
+        }
+        if (syncedAt < ReadYourWrites.requiredWatermark()) {
+            return Reason.READ_YOUR_WRITES;
+        }
+        return Reason.READ;
+    }
+}
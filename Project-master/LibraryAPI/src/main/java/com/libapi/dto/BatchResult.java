@@ -0,0 +1,28 @@
+package com.libapi.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Entities fetched by a list of ids.
+ *
+ * @param <T> The type of the entities.
+ */
+@Getter
+public class BatchResult<T> {
+
+    /**
+     * Largest number of ids a single batch request may ask for.
+     */
+    public static final int MAX_IDS = 1000;
+
+    private final List<T> items;
+
+    private final List<Long> missing;
+
+    public BatchResult(List<T> items, List<Long> missing) {
+        this.items = items;
+        this.missing = missing;
+    }
+}
@@ -0,0 +1,16 @@
+package com.libapi.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A single row of the book_author join table.
+ */
+@Getter
+@Setter
+public class BookAuthorLink {
+
+    private Long authorId;
+
+    private Long bookId;
+}
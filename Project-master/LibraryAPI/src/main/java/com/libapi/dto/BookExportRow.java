@@ -0,0 +1,47 @@
+package com.libapi.dto;
+
+import com.libapi.entity.BookEntity;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One line of the catalog export: a book with the ids of its associations.
+ */
+@Getter
+public class BookExportRow {
+
+    private final Long id;
+
+    private final String title;
+
+    private final List<Long> authorIds;
+
+    private final Long libraryId;
+
+    private final Long customerId;
+
+    private BookExportRow(Long id, String title, List<Long> authorIds, Long libraryId, Long customerId) {
+        this.id = id;
+        this.title = title;
+        this.authorIds = authorIds;
+        this.libraryId = libraryId;
+        this.customerId = customerId;
+    }
+
+    /**
+     * Build an export row; reading the library and customer ids does not load them.
+     *
+     * @param book      The book to export.
+     * @param authorIds The ids of its authors, in ascending order; the authors are not loaded.
+     * @return The export row.
+     */
+    public static BookExportRow of(BookEntity book, List<Long> authorIds) {
+        return new BookExportRow(
+                book.getId(),
+                book.getTitle(),
+                authorIds,
+                book.getLibrary() == null ? null : book.getLibrary().getId(),
+                book.getCustomer() == null ? null : book.getCustomer().getId());
+    }
+}
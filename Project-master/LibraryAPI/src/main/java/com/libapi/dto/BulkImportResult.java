@@ -0,0 +1,35 @@
+package com.libapi.dto;
+
+import lombok.Getter;
+
+/**
+ * Outcome of a bulk import: how many rows were written and how fast.
+ * <p>
+ * Each chunk is committed on its own, so a failed import reports the rows
+ * committed before the failure together with the error; those rows stay.
+ */
+@Getter
+public class BulkImportResult {
+
+    private final long imported;
+
+    private final long elapsedMillis;
+
+    private final double rowsPerSecond;
+
+    /**
+     * Why the import stopped, or null if every row was imported.
+     */
+    private final String error;
+
+    public BulkImportResult(long imported, long elapsedNanos) {
+        this(imported, elapsedNanos, null);
+    }
+
+    public BulkImportResult(long imported, long elapsedNanos, String error) {
+        this.imported = imported;
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+        this.rowsPerSecond = elapsedNanos == 0 ? 0 : imported * 1_000_000_000d / elapsedNanos;
+        this.error = error;
+    }
+}
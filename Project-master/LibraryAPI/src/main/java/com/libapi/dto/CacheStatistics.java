@@ -0,0 +1,22 @@
+package com.libapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Hit, miss and eviction counters of a single cache.
+ */
+@Getter
+@AllArgsConstructor
+public class CacheStatistics {
+
+    private final long size;
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final double hitRate;
+
+    private final long evictionCount;
+}
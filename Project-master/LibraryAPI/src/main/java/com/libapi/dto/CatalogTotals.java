@@ -0,0 +1,29 @@
+package com.libapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Catalog-wide row counts and book availability.
+ */
+@Getter
+@AllArgsConstructor
+public class CatalogTotals {
+
+    private final long books;
+
+    private final long authors;
+
+    private final long customers;
+
+    private final long libraries;
+
+    private final long checkedOut;
+
+    /**
+     * Books that are not lent to anyone.
+     */
+    public long getAvailable() {
+        return books - checkedOut;
+    }
+}
@@ -0,0 +1,26 @@
+package com.libapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Consecutive entries of the change log.
+ */
+@Getter
+@AllArgsConstructor
+public class ChangeBatch {
+
+    /**
+     * Largest number of changes delivered at once, whatever the client asks for.
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<ChangeEvent> changes;
+
+    /**
+     * Sequence to resume from: that of the last change, or the requested one if there are none.
+     */
+    private final long lastSequence;
+}
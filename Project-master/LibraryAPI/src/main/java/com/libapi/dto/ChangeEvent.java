@@ -0,0 +1,40 @@
+package com.libapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * A single entry of the catalog change log.
+ */
+@Getter
+@AllArgsConstructor
+public class ChangeEvent {
+
+    public static final String BOOKS = "books";
+    public static final String AUTHORS = "authors";
+    public static final String CUSTOMERS = "customers";
+    public static final String LIBRARIES = "libraries";
+
+    /**
+     * Position in the log; pass the last one seen as {@code after} to resume.
+     */
+    private final long sequence;
+
+    /**
+     * The changed resource collection, as in its URL: books, authors, customers or libraries.
+     */
+    private final String resource;
+
+    private final long id;
+
+    private final ChangeOperation operation;
+
+    /**
+     * The book linked or unlinked, for {@link ChangeOperation#LINKED} and {@link ChangeOperation#UNLINKED}.
+     */
+    private final Long relatedId;
+
+    private final Instant changedAt;
+}
@@ -0,0 +1,23 @@
+package com.libapi.dto;
+
+/**
+ * What happened to a resource in a {@link ChangeEvent}.
+ */
+public enum ChangeOperation {
+
+    CREATED,
+
+    UPDATED,
+
+    DELETED,
+
+    /**
+     * A book was associated with the resource: written by an author, shelved in a library or lent to a customer.
+     */
+    LINKED,
+
+    /**
+     * A book was taken away from the resource.
+     */
+    UNLINKED
+}
@@ -0,0 +1,18 @@
+package com.libapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number of books related to a single customer or author.
+ */
+@Getter
+@AllArgsConstructor
+public class CountStats {
+
+    private final Long id;
+
+    private final String name;
+
+    private final long books;
+}
@@ -0,0 +1,69 @@
+package com.libapi.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A single page of a keyset-paginated listing.
+ * <p>
+ * Pages are ordered by id; {@code nextCursor} is the id to pass as {@code after}
+ * to fetch the following page, or {@code null} when there are no more rows.
+ *
+ * @param <T> The type of the items in the page.
+ */
+@Getter
+public class CursorPage<T> {
+
+    /**
+     * Page size used when the client does not ask for one.
+     */
+    public static final int DEFAULT_LIMIT = 50;
+
+    /**
+     * Largest page size the server will return, whatever the client asks for.
+     */
+    public static final int MAX_LIMIT = 500;
+
+    private final List<T> items;
+
+    private final Long nextCursor;
+
+    private final int limit;
+
+    public CursorPage(List<T> items, Long nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    /**
+     * Clamp a client-supplied page size to the server limits.
+     *
+     * @param limit The requested page size, may be null.
+     * @return A page size between 1 and {@link #MAX_LIMIT}.
+     */
+    public static int clampLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Build a page from rows fetched with one extra row of look-ahead.
+     *
+     * @param rows  Up to {@code limit + 1} rows ordered by id.
+     * @param limit The page size.
+     * @param idOf  Extracts the id used as the cursor.
+     * @return The page, with a next cursor only if the look-ahead row exists.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> idOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null, limit);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, idOf.apply(items.get(limit - 1)), limit);
+    }
+}
@@ -0,0 +1,32 @@
+package com.libapi.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk delete request.
+ */
+@Getter
+public class DeleteResult {
+
+    /**
+     * Largest number of ids a single bulk delete request may carry.
+     */
+    public static final int MAX_IDS = 1000;
+
+    /**
+     * The ids that were deleted, in request order.
+     */
+    private final List<Long> deleted;
+
+    /**
+     * The ids that did not exist, in request order.
+     */
+    private final List<Long> missing;
+
+    public DeleteResult(List<Long> deleted, List<Long> missing) {
+        this.deleted = deleted;
+        this.missing = missing;
+    }
+}
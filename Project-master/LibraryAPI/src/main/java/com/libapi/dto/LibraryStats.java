@@ -0,0 +1,27 @@
+package com.libapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Book counts of a single library.
+ */
+@Getter
+@AllArgsConstructor
+public class LibraryStats {
+
+    private final Long id;
+
+    private final String name;
+
+    private final long books;
+
+    private final long checkedOut;
+
+    /**
+     * Books of the library that are not lent to anyone.
+     */
+    public long getAvailable() {
+        return books - checkedOut;
+    }
+}
@@ -0,0 +1,44 @@
+package com.libapi.dto;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Per-book outcome of a bulk link or unlink request.
+ */
+@Getter
+public class LinkResult {
+
+    /**
+     * Largest number of book ids a single bulk link request may carry.
+     */
+    public static final int MAX_IDS = 10_000;
+
+    /**
+     * Status of every requested book id, in request order.
+     */
+    private final Map<Long, LinkStatus> results;
+
+    public LinkResult(Map<Long, LinkStatus> results) {
+        this.results = results;
+    }
+
+    /**
+     * Number of books whose link was created or removed.
+     */
+    public long getChanged() {
+        return results.values().stream()
+                .filter(status -> status == LinkStatus.LINKED || status == LinkStatus.UNLINKED)
+                .count();
+    }
+
+    /**
+     * Number of books that could not be linked or unlinked.
+     */
+    public long getFailed() {
+        return results.values().stream()
+                .filter(status -> status == LinkStatus.NOT_FOUND || status == LinkStatus.CONFLICT)
+                .count();
+    }
+}
@@ -0,0 +1,32 @@
+package com.libapi.dto;
+
+/**
+ * Outcome of linking or unlinking a single book in a bulk request.
+ */
+public enum LinkStatus {
+
+    /**
+     * The link was created.
+     */
+    LINKED,
+
+    /**
+     * The link was removed.
+     */
+    UNLINKED,
+
+    /**
+     * The book was already in the requested state; nothing was written.
+     */
+    UNCHANGED,
+
+    /**
+     * No book has this id.
+     */
+    NOT_FOUND,
+
+    /**
+     * The book is held by another customer, so it cannot be lent or returned.
+     */
+    CONFLICT
+}
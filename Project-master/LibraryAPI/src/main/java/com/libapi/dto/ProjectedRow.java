@@ -0,0 +1,30 @@
+package com.libapi.dto;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+
+/**
+ * A row read with {@code fields=}: the requested fields by name, in order.
+ * <p>
+ * The version of the row is always read, but only rendered if requested, so
+ * that the response's ETag can be built from ids and versions like the
+ * entity responses' are.
+ */
+public class ProjectedRow extends LinkedHashMap<String, Object> {
+
+    /**
+     * The version of the row, whether or not it is one of the rendered fields.
+     */
+    @Getter
+    private final Long version;
+
+    public ProjectedRow(int fields, Long version) {
+        super(fields * 2);
+        this.version = version;
+    }
+
+    public Long getId() {
+        return (Long) get("id");
+    }
+}
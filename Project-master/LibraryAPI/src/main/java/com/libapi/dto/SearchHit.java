@@ -0,0 +1,18 @@
+package com.libapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A single search match: the id and indexed text of a book or author, with its relevance.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchHit {
+
+    private final long id;
+
+    private final String text;
+
+    private final double score;
+}
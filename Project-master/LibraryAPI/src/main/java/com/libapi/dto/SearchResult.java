@@ -0,0 +1,22 @@
+package com.libapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A page of search hits ordered by relevance.
+ * <p>
+ * {@code nextOffset} is the offset of the following page, or {@code null} when there are no more hits.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchResult {
+
+    private final List<SearchHit> hits;
+
+    private final int total;
+
+    private final Integer nextOffset;
+}
@@ -1,10 +1,14 @@
 package com.libapi.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -21,10 +25,28 @@ public class BookEntity {
      * Unique identifier for the book.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
+    /**
+     * Optimistic-locking version, incremented on every update of the book.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    /**
+     * When the book was last created or modified.
+     */
+    @UpdateTimestamp
+    @Column(name = "last_modified")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant lastModified;
+
     /**
      * The title of the book.
      */
@@ -41,15 +63,15 @@ public class BookEntity {
      * The library where the book is located.
      */
     @JsonIgnore
-    @ManyToOne
-    @JoinTable(name = "library_id")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "library_id")
     private LibraryEntity library;
 
     /**
      * The customer who has borrowed the book.
      */
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id")
     private CustomerEntity customer;
 }
@@ -1,10 +1,14 @@
 package com.libapi.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.awt.print.Book;
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -20,10 +24,28 @@ public class LibraryEntity {
      * Unique identifier for the library.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "library_seq")
+    @SequenceGenerator(name = "library_seq", sequenceName = "library_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
+    /**
+     * Optimistic-locking version, incremented on every update of the library.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    /**
+     * When the library was last created or modified.
+     */
+    @UpdateTimestamp
+    @Column(name = "last_modified")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant lastModified;
+
     /**
      * The name of the library.
      */
@@ -0,0 +1,35 @@
+package com.libapi.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ * <p>
+ * Registered through {@code hibernate.session_factory.statement_inspector};
+ * {@link RequestMetricsFilter} resets the count at the start of each request
+ * and reads it at the end.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Start counting from zero on the current thread.
+     */
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * Number of statements prepared on the current thread since the last reset.
+     */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
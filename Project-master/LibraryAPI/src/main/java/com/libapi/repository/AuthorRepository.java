@@ -1,10 +1,68 @@
 package com.libapi.repository;
 
+import com.libapi.dto.CountStats;
 import com.libapi.entity.AuthorEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Repository interface for managing {@link AuthorEntity} entities in the database.
  */
 public interface AuthorRepository extends JpaRepository<AuthorEntity, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Retrieve the next page of authors after the given id, in id order.
+     *
+     * @param after    The id to start after (exclusive).
+     * @param pageable The page size; the offset is always zero.
+     * @return List of AuthorEntity objects.
+     */
+    List<AuthorEntity> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    /**
+     * Count the titles of each of the next page of authors, grouped in the database.
+     * The page of ids is selected first, so only the rows of those owners are grouped.
+     *
+     * @param after The id to start after (exclusive).
+     * @param limit The page size.
+     * @return List of CountStats in author id order.
+     */
+    @Query("select new com.libapi.dto.CountStats(a.id, a.name, count(b.id))"
+            + " from AuthorEntity a left join a.books b"
+            + " where a.id in (select p.id from AuthorEntity p where p.id > :after order by p.id limit :limit)"
+            + " group by a.id, a.name order by a.id")
+    List<CountStats> countBooksByAuthor(@Param("after") Long after, @Param("limit") int limit);
+
+    /**
+     * Retrieve the authors with the given ids in a single query.
+     *
+     * @param ids The unique identifiers, at most a few hundred.
+     * @return List of AuthorEntity objects in no particular order.
+     */
+    List<AuthorEntity> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Set the name of a author with one UPDATE, without loading it or touching its associations.
+     *
+     * @param id              The unique identifier of the author.
+     * @param name            The new name.
+     * @param expectedVersion The version the author must have, or null to update any version.
+     * @param now             The new last-modified time.
+     * @return Number of rows updated: 0 if the author does not exist or has another version.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update AuthorEntity a set a.name = :name, a.version = a.version + 1, a.lastModified = :now"
+            + " where a.id = :id and (:expectedVersion is null or a.version = :expectedVersion)")
+    int updateName(
+            @Param("id") Long id,
+            @Param("name") String name,
+            @Param("expectedVersion") Long expectedVersion,
+            @Param("now") Instant now);
+}
@@ -0,0 +1,103 @@
+package com.libapi.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Repository setting the library or customer of many books with set-based
+ * statements, without loading the books or the owner's collection.
+ * <p>
+ * Callers lock the rows with one of the {@code lock} methods first, decide
+ * per book what to change, and then update the chosen books in one
+ * statement within the same transaction.
+ */
+@Repository
+public class BookAssignmentRepository {
+
+    private static final String LOCK_LIBRARIES =
+            "SELECT id, library_id FROM book WHERE id IN (:bookIds) FOR UPDATE";
+
+    private static final String LOCK_CUSTOMERS =
+            "SELECT id, customer_id FROM book WHERE id IN (:bookIds) FOR UPDATE";
+
+    private static final String SET_LIBRARY =
+            "UPDATE book SET library_id = :ownerId, version = version + 1, last_modified = CURRENT_TIMESTAMP"
+                    + " WHERE id IN (:bookIds)";
+
+    private static final String SET_CUSTOMER =
+            "UPDATE book SET customer_id = :ownerId, version = version + 1, last_modified = CURRENT_TIMESTAMP"
+                    + " WHERE id IN (:bookIds)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BookAssignmentRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Lock the given books and read their library.
+     *
+     * @param bookIds The unique identifiers of the books, at most a few hundred.
+     * @return Map of every existing book id to its library id, which may be null.
+     */
+    public Map<Long, Long> lockLibraries(Collection<Long> bookIds) {
+        return lock(LOCK_LIBRARIES, bookIds);
+    }
+
+    /**
+     * Lock the given books and read the customer they are lent to.
+     *
+     * @param bookIds The unique identifiers of the books, at most a few hundred.
+     * @return Map of every existing book id to its customer id, which may be null.
+     */
+    public Map<Long, Long> lockCustomers(Collection<Long> bookIds) {
+        return lock(LOCK_CUSTOMERS, bookIds);
+    }
+
+    /**
+     * Move the given books to a library, or off any library.
+     *
+     * @param libraryId The unique identifier of the library, or null.
+     * @param bookIds   The unique identifiers of the books, at most a few hundred.
+     * @return Number of books updated.
+     */
+    public int setLibrary(Long libraryId, Collection<Long> bookIds) {
+        return update(SET_LIBRARY, libraryId, bookIds);
+    }
+
+    /**
+     * Lend the given books to a customer, or mark them returned.
+     *
+     * @param customerId The unique identifier of the customer, or null.
+     * @param bookIds    The unique identifiers of the books, at most a few hundred.
+     * @return Number of books updated.
+     */
+    public int setCustomer(Long customerId, Collection<Long> bookIds) {
+        return update(SET_CUSTOMER, customerId, bookIds);
+    }
+
+    private Map<Long, Long> lock(String sql, Collection<Long> bookIds) {
+        Map<Long, Long> owners = new HashMap<>(bookIds.size() * 2);
+        jdbcTemplate.query(sql, new MapSqlParameterSource("bookIds", bookIds), rs -> {
+            owners.put(rs.getLong(1), rs.getObject(2, Long.class));
+        });
+        return owners;
+    }
+
+    private int update(String sql, Long ownerId, Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(sql, new MapSqlParameterSource()
+                .addValue("ownerId", ownerId, Types.BIGINT)
+                .addValue("bookIds", bookIds));
+    }
+}
@@ -0,0 +1,81 @@
+package com.libapi.repository;
+
+import com.libapi.dto.BookAuthorLink;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository writing rows of the book_author join table directly, without
+ * loading either side of the association.
+ */
+@Repository
+public class BookAuthorLinkRepository {
+
+    private static final String MERGE_LINK =
+            "MERGE INTO book_author (author_id, book_id) KEY (author_id, book_id) VALUES (?, ?)";
+
+    private static final String FIND_LINKS =
+            "SELECT b.id, ba.author_id FROM book b"
+                    + " LEFT JOIN book_author ba ON ba.book_id = b.id AND ba.author_id = :authorId"
+                    + " WHERE b.id IN (:bookIds)";
+
+    private static final String DELETE_LINKS =
+            "DELETE FROM book_author WHERE author_id = :authorId AND book_id IN (:bookIds)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BookAuthorLinkRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert links as one JDBC batch; links that already exist are left unchanged.
+     *
+     * @param links The links to write.
+     */
+    public void mergeAll(List<BookAuthorLink> links) {
+        jdbcTemplate.getJdbcTemplate().batchUpdate(MERGE_LINK, links, links.size(), (ps, link) -> {
+            ps.setLong(1, link.getAuthorId());
+            ps.setLong(2, link.getBookId());
+        });
+    }
+
+    /**
+     * Find which of the given books exist and which of them are linked to an author, in one query.
+     *
+     * @param authorId The unique identifier of the author.
+     * @param bookIds  The unique identifiers of the books, at most a few hundred.
+     * @return Map of every existing book id to whether it is linked to the author.
+     */
+    public Map<Long, Boolean> findLinks(Long authorId, Collection<Long> bookIds) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("authorId", authorId)
+                .addValue("bookIds", bookIds);
+        Map<Long, Boolean> links = new HashMap<>(bookIds.size() * 2);
+        jdbcTemplate.query(FIND_LINKS, parameters, rs -> {
+            links.put(rs.getLong(1), rs.getObject(2) != null);
+        });
+        return links;
+    }
+
+    /**
+     * Remove the links between an author and the given books in one statement.
+     *
+     * @param authorId The unique identifier of the author.
+     * @param bookIds  The unique identifiers of the books, at most a few hundred.
+     * @return Number of links removed.
+     */
+    public int deleteAll(Long authorId, Collection<Long> bookIds) {
+        return jdbcTemplate.update(DELETE_LINKS, new MapSqlParameterSource()
+                .addValue("authorId", authorId)
+                .addValue("bookIds", bookIds));
+    }
+}
@@ -1,10 +1,127 @@
 package com.libapi.repository;
 
 import com.libapi.entity.BookEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing {@link BookEntity} entities in the database.
  */
 public interface BookRepository extends JpaRepository<BookEntity, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Retrieve the next page of books after the given id, in id order.
+     *
+     * @param after    The id to start after (exclusive).
+     * @param pageable The page size; the offset is always zero.
+     * @return List of BookEntity objects.
+     */
+    List<BookEntity> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    /**
+     * Retrieve a book together with its authors in a single query.
+     *
+     * @param id The unique identifier of the book.
+     * @return Optional containing the BookEntity if found.
+     */
+    @Override
+    @EntityGraph(attributePaths = "authors")
+    Optional<BookEntity> findById(Long id);
+
+    /**
+     * Stream every book in id order through a server-side cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @return Stream of BookEntity objects.
+     */
+    @Query("select b from BookEntity b order by b.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<BookEntity> streamAllOrderedById();
+
+    /**
+     * Retrieve the author ids of the given books in one query, without loading the authors.
+     *
+     * @param ids The unique identifiers of the books, at most a few hundred.
+     * @return Pairs of book id and author id, ordered by book id and then author id.
+     */
+    @Query("select b.id, a.id from BookEntity b join b.authors a where b.id in :ids order by b.id, a.id")
+    List<Object[]> findAuthorIdsByBookIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lend a book to a customer in one statement, only if the book is available
+     * (or already lent to that customer) and the customer exists.
+     *
+     * @param bookId     The unique identifier of the book.
+     * @param customerId The unique identifier of the customer.
+     * @return 1 if the book is now lent to the customer, 0 otherwise.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE book SET customer_id = :customerId,"
+            + " version = COALESCE(version, 0) + 1, last_modified = CURRENT_TIMESTAMP"
+            + " WHERE id = :bookId AND (customer_id IS NULL OR customer_id = :customerId)"
+            + " AND EXISTS (SELECT 1 FROM customer WHERE id = :customerId)", nativeQuery = true)
+    int checkOut(@Param("bookId") Long bookId, @Param("customerId") Long customerId);
+
+    /**
+     * Give a book back in one statement, only if it is lent to the given customer.
+     *
+     * @param bookId     The unique identifier of the book.
+     * @param customerId The unique identifier of the customer.
+     * @return 1 if the book was returned, 0 otherwise.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE book SET customer_id = NULL,"
+            + " version = COALESCE(version, 0) + 1, last_modified = CURRENT_TIMESTAMP"
+            + " WHERE id = :bookId AND customer_id = :customerId", nativeQuery = true)
+    int checkIn(@Param("bookId") Long bookId, @Param("customerId") Long customerId);
+
+    /**
+     * Count the books currently lent to a customer.
+     *
+     * @return Number of books with a customer.
+     */
+    long countByCustomerIsNotNull();
+
+    /**
+     * Retrieve the books with the given ids, together with their authors, in a single query.
+     *
+     * @param ids The unique identifiers, at most a few hundred.
+     * @return List of BookEntity objects in no particular order.
+     */
+    @EntityGraph(attributePaths = "authors")
+    List<BookEntity> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Set the title of a book with one UPDATE, without loading it or touching its associations.
+     *
+     * @param id              The unique identifier of the book.
+     * @param title           The new title.
+     * @param expectedVersion The version the book must have, or null to update any version.
+     * @param now             The new last-modified time.
+     * @return Number of rows updated: 0 if the book does not exist or has another version.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update BookEntity b set b.title = :title, b.version = b.version + 1, b.lastModified = :now"
+            + " where b.id = :id and (:expectedVersion is null or b.version = :expectedVersion)")
+    int updateTitle(
+            @Param("id") Long id,
+            @Param("title") String title,
+            @Param("expectedVersion") Long expectedVersion,
+            @Param("now") Instant now);
+}
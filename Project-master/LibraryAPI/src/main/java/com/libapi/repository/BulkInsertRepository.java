@@ -0,0 +1,34 @@
+package com.libapi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository inserting imported entities as JDBC batches, without keeping them
+ * in the persistence context.
+ * <p>
+ * As a {@code @Repository}, its persistence exceptions are translated, so a row
+ * that breaks a constraint of the schema surfaces as a
+ * {@link org.springframework.dao.DataIntegrityViolationException}.
+ */
+@Repository
+public class BulkInsertRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Insert new entities in the current transaction and detach them.
+     *
+     * @param entities The entities to insert; their generated ids are set on them.
+     */
+    public void persistAll(List<?> entities) {
+        entities.forEach(entityManager::persist);
+        // Send the batched inserts and drop the entities so memory stays flat
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
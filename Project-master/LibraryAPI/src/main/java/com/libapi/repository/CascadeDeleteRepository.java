@@ -0,0 +1,166 @@
+package com.libapi.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Repository deleting libraries, customers and authors together with their
+ * links to books, with set-based statements that load neither the owners nor
+ * their books.
+ * <p>
+ * Callers lock the owners with one of the {@code lock} methods first, detach
+ * or reassign their books, and then delete the owners, all within the same
+ * transaction. Every book whose library, customer or authors change gets a
+ * new version, as with {@link BookAssignmentRepository}.
+ */
+@Repository
+public class CascadeDeleteRepository {
+
+    private static final String LOCK_LIBRARIES =
+            "SELECT id, version FROM library WHERE id IN (:ids) FOR UPDATE";
+
+    private static final String LOCK_CUSTOMERS =
+            "SELECT id, version FROM customer WHERE id IN (:ids) FOR UPDATE";
+
+    private static final String LOCK_AUTHORS =
+            "SELECT id, version FROM author WHERE id IN (:ids) FOR UPDATE";
+
+    private static final String MOVE_LIBRARY_BOOKS =
+            "UPDATE book SET library_id = :targetId, version = version + 1, last_modified = CURRENT_TIMESTAMP"
+                    + " WHERE library_id IN (:ids)";
+
+    private static final String RETURN_CUSTOMER_BOOKS =
+            "UPDATE book SET customer_id = NULL, version = version + 1, last_modified = CURRENT_TIMESTAMP"
+                    + " WHERE customer_id IN (:ids)";
+
+    private static final String TOUCH_AUTHOR_BOOKS =
+            "UPDATE book SET version = version + 1, last_modified = CURRENT_TIMESTAMP"
+                    + " WHERE id IN (SELECT book_id FROM book_author WHERE author_id IN (:ids))";
+
+    private static final String DELETE_AUTHOR_LINKS =
+            "DELETE FROM book_author WHERE author_id IN (:ids)";
+
+    private static final String DELETE_LIBRARIES = "DELETE FROM library WHERE id IN (:ids)";
+
+    private static final String DELETE_CUSTOMERS = "DELETE FROM customer WHERE id IN (:ids)";
+
+    private static final String DELETE_AUTHORS = "DELETE FROM author WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CascadeDeleteRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Lock the given libraries and read their versions.
+     *
+     * @param ids The unique identifiers of the libraries, at most a few hundred.
+     * @return Map of every existing library id to its version.
+     */
+    public Map<Long, Long> lockLibraries(Collection<Long> ids) {
+        return lock(LOCK_LIBRARIES, ids);
+    }
+
+    /**
+     * Lock the given customers and read their versions.
+     *
+     * @param ids The unique identifiers of the customers, at most a few hundred.
+     * @return Map of every existing customer id to its version.
+     */
+    public Map<Long, Long> lockCustomers(Collection<Long> ids) {
+        return lock(LOCK_CUSTOMERS, ids);
+    }
+
+    /**
+     * Lock the given authors and read their versions.
+     *
+     * @param ids The unique identifiers of the authors, at most a few hundred.
+     * @return Map of every existing author id to its version.
+     */
+    public Map<Long, Long> lockAuthors(Collection<Long> ids) {
+        return lock(LOCK_AUTHORS, ids);
+    }
+
+    /**
+     * Move every book of the given libraries to another library, or off any library.
+     *
+     * @param libraryIds The unique identifiers of the libraries, at most a few hundred.
+     * @param targetId   The unique identifier of the library receiving the books, or null.
+     * @return Number of books updated.
+     */
+    public int moveLibraryBooks(Collection<Long> libraryIds, Long targetId) {
+        return jdbcTemplate.update(MOVE_LIBRARY_BOOKS, new MapSqlParameterSource()
+                .addValue("targetId", targetId, Types.BIGINT)
+                .addValue("ids", libraryIds));
+    }
+
+    /**
+     * Mark every book lent to the given customers returned.
+     *
+     * @param customerIds The unique identifiers of the customers, at most a few hundred.
+     * @return Number of books updated.
+     */
+    public int returnCustomerBooks(Collection<Long> customerIds) {
+        return jdbcTemplate.update(RETURN_CUSTOMER_BOOKS, new MapSqlParameterSource("ids", customerIds));
+    }
+
+    /**
+     * Remove every link between the given authors and their books.
+     *
+     * @param authorIds The unique identifiers of the authors, at most a few hundred.
+     * @return Number of books updated.
+     */
+    public int unlinkAuthorBooks(Collection<Long> authorIds) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("ids", authorIds);
+        int books = jdbcTemplate.update(TOUCH_AUTHOR_BOOKS, parameters);
+        jdbcTemplate.update(DELETE_AUTHOR_LINKS, parameters);
+        return books;
+    }
+
+    /**
+     * Delete the given libraries; their books must already be moved.
+     *
+     * @param ids The unique identifiers of the libraries, at most a few hundred.
+     * @return Number of libraries deleted.
+     */
+    public int deleteLibraries(Collection<Long> ids) {
+        return jdbcTemplate.update(DELETE_LIBRARIES, new MapSqlParameterSource("ids", ids));
+    }
+
+    /**
+     * Delete the given customers; their books must already be returned.
+     *
+     * @param ids The unique identifiers of the customers, at most a few hundred.
+     * @return Number of customers deleted.
+     */
+    public int deleteCustomers(Collection<Long> ids) {
+        return jdbcTemplate.update(DELETE_CUSTOMERS, new MapSqlParameterSource("ids", ids));
+    }
+
+    /**
+     * Delete the given authors; their links must already be removed.
+     *
+     * @param ids The unique identifiers of the authors, at most a few hundred.
+     * @return Number of authors deleted.
+     */
+    public int deleteAuthors(Collection<Long> ids) {
+        return jdbcTemplate.update(DELETE_AUTHORS, new MapSqlParameterSource("ids", ids));
+    }
+
+    private Map<Long, Long> lock(String sql, Collection<Long> ids) {
+        Map<Long, Long> versions = new HashMap<>(ids.size() * 2);
+        jdbcTemplate.query(sql, new MapSqlParameterSource("ids", ids), rs -> {
+            versions.put(rs.getLong(1), rs.getLong(2));
+        });
+        return versions;
+    }
+}
@@ -0,0 +1,149 @@
+package com.libapi.repository;
+
+import com.libapi.dto.ChangeEvent;
+import com.libapi.dto.ChangeOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository appending to and reading the change_log table.
+ */
+@Repository
+public class ChangeLogRepository {
+
+    private static final String APPEND =
+            "INSERT INTO change_log (resource, resource_id, operation, related_id) VALUES (?, ?, ?, ?)";
+
+    private static final String APPEND_LIBRARY_MOVES =
+            "INSERT INTO change_log (resource, resource_id, operation, related_id)"
+                    + " SELECT '" + ChangeEvent.LIBRARIES + "', CAST(:libraryId AS BIGINT), '" + ChangeOperation.LINKED.name() + "', id"
+                    + " FROM book WHERE library_id IN (:fromIds)";
+
+    private static final String FIND_AFTER =
+            "SELECT seq, resource, resource_id, operation, related_id, changed_at FROM change_log"
+                    + " WHERE seq > :after ORDER BY seq FETCH FIRST :limit ROWS ONLY";
+
+    private static final String LAST_BEFORE =
+            "SELECT MAX(seq) FROM change_log WHERE changed_at < :cutoff";
+
+    private static final String DELETE_THROUGH =
+            "DELETE FROM change_log WHERE seq <= :through";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ChangeLogRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Append one change.
+     */
+    public void append(String resource, long id, ChangeOperation operation, Long relatedId) {
+        jdbcTemplate.getJdbcTemplate().update(APPEND, ps -> {
+            ps.setString(1, resource);
+            ps.setLong(2, id);
+            ps.setString(3, operation.name());
+            if (relatedId == null) {
+                ps.setNull(4, Types.BIGINT);
+            } else {
+                ps.setLong(4, relatedId);
+            }
+        });
+    }
+
+    /**
+     * Append one change per related id, as one JDBC batch.
+     */
+    public void appendAll(String resource, long id, ChangeOperation operation, Collection<Long> relatedIds) {
+        jdbcTemplate.getJdbcTemplate().batchUpdate(APPEND, relatedIds, relatedIds.size(), (ps, relatedId) -> {
+            ps.setString(1, resource);
+            ps.setLong(2, id);
+            ps.setString(3, operation.name());
+            ps.setLong(4, relatedId);
+        });
+    }
+
+    /**
+     * Append one change per id, as one JDBC batch.
+     */
+    public void appendEach(String resource, Collection<Long> ids, ChangeOperation operation) {
+        jdbcTemplate.getJdbcTemplate().batchUpdate(APPEND, ids, ids.size(), (ps, id) -> {
+            ps.setString(1, resource);
+            ps.setLong(2, id);
+            ps.setString(3, operation.name());
+            ps.setNull(4, Types.BIGINT);
+        });
+    }
+
+    /**
+     * Append a {@link ChangeOperation#LINKED} change to a library for every book
+     * currently in one of the other libraries, in one statement. Run before moving the books.
+     *
+     * @return Number of changes appended.
+     */
+    public int appendLibraryMoves(long libraryId, Collection<Long> fromLibraryIds) {
+        return jdbcTemplate.update(APPEND_LIBRARY_MOVES, new MapSqlParameterSource()
+                .addValue("libraryId", libraryId)
+                .addValue("fromIds", fromLibraryIds));
+    }
+
+    /**
+     * Read the changes following a sequence number.
+     *
+     * @param after The sequence to start after (exclusive).
+     * @param limit Largest number of changes to return.
+     * @return The changes in sequence order.
+     */
+    public List<ChangeEvent> findAfter(long after, int limit) {
+        return jdbcTemplate.query(FIND_AFTER, new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", limit), (rs, rowNum) -> new ChangeEvent(
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getLong(3),
+                ChangeOperation.valueOf(rs.getString(4)),
+                rs.getObject(5, Long.class),
+                rs.getTimestamp(6).toInstant()));
+    }
+
+    /**
+     * Sequence of the latest change, or 0 if the log is empty.
+     */
+    public long findHead() {
+        Long head = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT MAX(seq) FROM change_log", Long.class);
+        return head == null ? 0 : head;
+    }
+
+    /**
+     * Sequence of the oldest change still kept, or null if the log is empty.
+     */
+    public Long findOldest() {
+        return jdbcTemplate.getJdbcTemplate().queryForObject("SELECT MIN(seq) FROM change_log", Long.class);
+    }
+
+    /**
+     * Sequence of the latest change made before a point in time, or null if there is none.
+     */
+    public Long findLastBefore(Instant cutoff) {
+        return jdbcTemplate.queryForObject(LAST_BEFORE,
+                new MapSqlParameterSource("cutoff", Timestamp.from(cutoff)), Long.class);
+    }
+
+    /**
+     * Delete every change up to and including a sequence number.
+     *
+     * @return Number of changes deleted.
+     */
+    public int deleteThrough(long through) {
+        return jdbcTemplate.update(DELETE_THROUGH, new MapSqlParameterSource("through", through));
+    }
+}
@@ -1,10 +1,81 @@
 package com.libapi.repository;
 
+import com.libapi.dto.CountStats;
 import com.libapi.entity.CustomerEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for managing {@link CustomerEntity} entities in the database.
  */
 public interface CustomerRepository extends JpaRepository<CustomerEntity, Long> {
+
+    /**
+     * Retrieve the next page of customers after the given id, in id order.
+     *
+     * @param after    The id to start after (exclusive).
+     * @param pageable The page size; the offset is always zero.
+     * @return List of CustomerEntity objects.
+     */
+    List<CustomerEntity> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    /**
+     * Retrieve a customer together with its borrowed books in a single query.
+     *
+     * @param id The unique identifier of the customer.
+     * @return Optional containing the CustomerEntity if found.
+     */
+    @Override
+    @EntityGraph(attributePaths = "books")
+    Optional<CustomerEntity> findById(Long id);
+
+    /**
+     * Count the books lent to each of the next page of customers, grouped in the database.
+     * The page of ids is selected first, so only the rows of those owners are grouped.
+     *
+     * @param after The id to start after (exclusive).
+     * @param limit The page size.
+     * @return List of CountStats in customer id order.
+     */
+    @Query("select new com.libapi.dto.CountStats(c.id, c.name, count(b.id))"
+            + " from CustomerEntity c left join c.books b"
+            + " where c.id in (select p.id from CustomerEntity p where p.id > :after order by p.id limit :limit)"
+            + " group by c.id, c.name order by c.id")
+    List<CountStats> countBooksByCustomer(@Param("after") Long after, @Param("limit") int limit);
+
+    /**
+     * Retrieve the customers with the given ids, together with their books, in a single query.
+     *
+     * @param ids The unique identifiers, at most a few hundred.
+     * @return List of CustomerEntity objects in no particular order.
+     */
+    @EntityGraph(attributePaths = "books")
+    List<CustomerEntity> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Set the name of a customer with one UPDATE, without loading it or touching its associations.
+     *
+     * @param id              The unique identifier of the customer.
+     * @param name            The new name.
+     * @param expectedVersion The version the customer must have, or null to update any version.
+     * @param now             The new last-modified time.
+     * @return Number of rows updated: 0 if the customer does not exist or has another version.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update CustomerEntity c set c.name = :name, c.version = c.version + 1, c.lastModified = :now"
+            + " where c.id = :id and (:expectedVersion is null or c.version = :expectedVersion)")
+    int updateName(
+            @Param("id") Long id,
+            @Param("name") String name,
+            @Param("expectedVersion") Long expectedVersion,
+            @Param("now") Instant now);
 }
@@ -1,10 +1,81 @@
 package com.libapi.repository;
 
+import com.libapi.dto.LibraryStats;
 import com.libapi.entity.LibraryEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for managing {@link LibraryEntity} entities in the database.
  */
 public interface LibraryRepository extends JpaRepository<LibraryEntity, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Retrieve the next page of libraries after the given id, in id order.
+     *
+     * @param after    The id to start after (exclusive).
+     * @param pageable The page size; the offset is always zero.
+     * @return List of LibraryEntity objects.
+     */
+    List<LibraryEntity> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    /**
+     * Retrieve a library together with its books in a single query.
+     *
+     * @param id The unique identifier of the library.
+     * @return Optional containing the LibraryEntity if found.
+     */
+    @Override
+    @EntityGraph(attributePaths = "books")
+    Optional<LibraryEntity> findById(Long id);
+
+    /**
+     * Count the books and lent books of the next page of libraries, grouped in the database.
+     * The page of ids is selected first, so only the rows of those owners are grouped.
+     *
+     * @param after The id to start after (exclusive).
+     * @param limit The page size.
+     * @return List of LibraryStats in library id order.
+     */
+    @Query("select new com.libapi.dto.LibraryStats(l.id, l.name, count(b.id), count(b.customer.id))"
+            + " from LibraryEntity l left join l.books b"
+            + " where l.id in (select p.id from LibraryEntity p where p.id > :after order by p.id limit :limit)"
+            + " group by l.id, l.name order by l.id")
+    List<LibraryStats> countBooksByLibrary(@Param("after") Long after, @Param("limit") int limit);
+
+    /**
+     * Retrieve the libraries with the given ids, together with their books, in a single query.
+     *
+     * @param ids The unique identifiers, at most a few hundred.
+     * @return List of LibraryEntity objects in no particular order.
+     */
+    @EntityGraph(attributePaths = "books")
+    List<LibraryEntity> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Set the name of a library with one UPDATE, without loading it or touching its associations.
+     *
+     * @param id              The unique identifier of the library.
+     * @param name            The new name.
+     * @param expectedVersion The version the library must have, or null to update any version.
+     * @param now             The new last-modified time.
+     * @return Number of rows updated: 0 if the library does not exist or has another version.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update LibraryEntity l set l.name = :name, l.version = l.version + 1, l.lastModified = :now"
+            + " where l.id = :id and (:expectedVersion is null or l.version = :expectedVersion)")
+    int updateName(
+            @Param("id") Long id,
+            @Param("name") String name,
+            @Param("expectedVersion") Long expectedVersion,
+            @Param("now") Instant now);
+}
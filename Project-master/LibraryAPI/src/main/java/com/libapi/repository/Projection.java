@@ -0,0 +1,78 @@
+package com.libapi.repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The fields a client may select with {@code fields=} on each resource, and
+ * how they are read.
+ * <p>
+ * Scalar fields are read as columns of the entity itself. The one
+ * association of each resource is read by a separate query returning
+ * {@code (owner id, id, version, label)} rows for a chunk of owners, and
+ * rendered as {@code {id, title}} books or {@code {id, name}} authors.
+ */
+public enum Projection {
+
+    BOOK("BookEntity", "title", association("authors", "name",
+            "select b.id, a.id, a.version, a.name from AuthorEntity a join a.books b where b.id in :ownerIds order by a.id")),
+
+    AUTHOR("AuthorEntity", "name", null),
+
+    CUSTOMER("CustomerEntity", "name", association("books", "title",
+            "select b.customer.id, b.id, b.version, b.title from BookEntity b where b.customer.id in :ownerIds order by b.id")),
+
+    LIBRARY("LibraryEntity", "name", association("books", "title",
+            "select b.library.id, b.id, b.version, b.title from BookEntity b where b.library.id in :ownerIds order by b.id"));
+
+    private final String entityName;
+    private final Map<String, String> columns = new LinkedHashMap<>();
+    private final Association association;
+
+    Projection(String entityName, String label, Association association) {
+        this.entityName = entityName;
+        this.association = association;
+        columns.put("id", "id");
+        columns.put("version", "version");
+        columns.put("lastModified", "lastModified");
+        columns.put(label, label);
+    }
+
+    String getEntityName() {
+        return entityName;
+    }
+
+    /**
+     * Whether a field name is a column of the entity.
+     */
+    public boolean isColumn(String field) {
+        return columns.containsKey(field);
+    }
+
+    /**
+     * The association field, such as {@code books}, or null if the resource renders none.
+     */
+    public String getAssociationName() {
+        return association == null ? null : association.name;
+    }
+
+    Association getAssociation() {
+        return association;
+    }
+
+    /**
+     * Every field name a client may ask for, for error messages.
+     */
+    public String allowedFields() {
+        return association == null
+                ? String.join(", ", columns.keySet())
+                : String.join(", ", columns.keySet()) + ", " + association.name;
+    }
+
+    private static Association association(String name, String label, String jpql) {
+        return new Association(name, label, jpql);
+    }
+
+    record Association(String name, String label, String jpql) {
+    }
+}
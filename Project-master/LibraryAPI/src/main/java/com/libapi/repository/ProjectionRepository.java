@@ -0,0 +1,125 @@
+package com.libapi.repository;
+
+import com.libapi.dto.ProjectedRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository reading only the requested fields of a resource, as JPQL tuple
+ * queries that select just those columns and never load entities or their
+ * associations.
+ * <p>
+ * Queries are built from {@link Projection} field names only, never from
+ * client text, so they cannot be used for injection. The version of every row
+ * and associated item is read too, for the ETag, whether or not it is rendered.
+ */
+@Repository
+public class ProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Read a page of rows ordered by id.
+     *
+     * @param projection The resource.
+     * @param fields     Column fields of the projection to select; id is always selected.
+     * @param after      The id to start after (exclusive).
+     * @param limit      Largest number of rows to return.
+     * @return The rows, each a {@link ProjectedRow} from field name to value in the order of {@code fields}.
+     */
+    public List<Map<String, Object>> findPage(Projection projection, Collection<String> fields, long after, int limit) {
+        List<String> selected = selected(projection, fields);
+        List<Tuple> tuples = entityManager.createQuery(select(projection, selected)
+                        + " where e.id > :after order by e.id", Tuple.class)
+                .setParameter("after", after)
+                .setMaxResults(limit)
+                .getResultList();
+        return rows(tuples, selected);
+    }
+
+    /**
+     * Read the rows with the given ids.
+     *
+     * @param projection The resource.
+     * @param fields     Column fields of the projection to select; id is always selected.
+     * @param ids        The unique identifiers, at most a few hundred.
+     * @return The rows found, as {@link ProjectedRow}s in no particular order.
+     */
+    public List<Map<String, Object>> findByIdIn(Projection projection, Collection<String> fields, Collection<Long> ids) {
+        List<String> selected = selected(projection, fields);
+        List<Tuple> tuples = entityManager.createQuery(select(projection, selected)
+                        + " where e.id in :ids", Tuple.class)
+                .setParameter("ids", ids)
+                .getResultList();
+        return rows(tuples, selected);
+    }
+
+    /**
+     * Read the association of many owners in one query, as id and label of each associated item.
+     *
+     * @param projection The resource, which must have an association.
+     * @param ownerIds   The unique identifiers of the owners, at most a few hundred.
+     * @return Map of owner id to its associated items, as {@link ProjectedRow}s; owners without any are absent.
+     */
+    public Map<Long, List<Map<String, Object>>> findAssociated(Projection projection, Collection<Long> ownerIds) {
+        Projection.Association association = projection.getAssociation();
+        Map<Long, List<Map<String, Object>>> associated = new HashMap<>();
+        List<Object[]> rows = entityManager.createQuery(association.jpql(), Object[].class)
+                .setParameter("ownerIds", ownerIds)
+                .getResultList();
+        for (Object[] row : rows) {
+            ProjectedRow item = new ProjectedRow(2, (Long) row[2]);
+            item.put("id", row[1]);
+            item.put(association.label(), row[3]);
+            associated.computeIfAbsent((Long) row[0], ownerId -> new ArrayList<>()).add(item);
+        }
+        return associated;
+    }
+
+    private static List<String> selected(Projection projection, Collection<String> fields) {
+        List<String> selected = new ArrayList<>(fields.size() + 1);
+        selected.add("id");
+        for (String field : fields) {
+            if (!projection.isColumn(field)) {
+                throw new IllegalArgumentException("Not a column of " + projection + ": " + field);
+            }
+            if (!selected.contains(field)) {
+                selected.add(field);
+            }
+        }
+        return selected;
+    }
+
+    private static String select(Projection projection, List<String> selected) {
+        StringBuilder jpql = new StringBuilder("select ");
+        for (int i = 0; i < selected.size(); i++) {
+            if (i > 0) {
+                jpql.append(", ");
+            }
+            jpql.append("e.").append(selected.get(i));
+        }
+        jpql.append(", e.version");
+        return jpql.append(" from ").append(projection.getEntityName()).append(" e").toString();
+    }
+
+    private static List<Map<String, Object>> rows(List<Tuple> tuples, List<String> selected) {
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            ProjectedRow row = new ProjectedRow(selected.size(), tuple.get(selected.size(), Long.class));
+            for (int i = 0; i < selected.size(); i++) {
+                row.put(selected.get(i), tuple.get(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
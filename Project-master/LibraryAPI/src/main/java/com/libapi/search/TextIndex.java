@@ -0,0 +1,231 @@
+package com.libapi.search;
+
+import com.libapi.dto.SearchHit;
+import com.libapi.dto.SearchResult;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over short texts such as titles and names.
+ * <p>
+ * Terms are kept in a sorted map so that prefix queries are a range scan.
+ * Every query token must match a term of the document, either exactly or as a
+ * prefix; exact matches score higher than prefix matches, and shorter texts
+ * score higher than longer ones.
+ */
+public class TextIndex {
+
+    /**
+     * Largest {@code offset + limit} a search accepts; deeper pages would keep
+     * that many hits in memory per request.
+     */
+    public static final int MAX_WINDOW = 10_000;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private static final double EXACT_MATCH = 2.0;
+    private static final double PREFIX_MATCH = 1.0;
+
+    private static final Comparator<SearchHit> RELEVANCE = Comparator
+            .comparingDouble(SearchHit::getScore).reversed()
+            .thenComparingLong(SearchHit::getId);
+
+    private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, String> texts = new ConcurrentHashMap<>();
+    private final Map<Long, String[]> terms = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Add or replace the text indexed for a document.
+     *
+     * @param id   The document id.
+     * @param text The text to index; null removes the document.
+     */
+    public void put(long id, String text) {
+        if (text == null) {
+            remove(id);
+            return;
+        }
+        String[] documentTerms = tokenize(text);
+        writeLock.lock();
+        try {
+            removeTerms(id);
+            for (String term : documentTerms) {
+                postings.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            terms.put(id, documentTerms);
+            texts.put(id, text);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Remove a document from the index.
+     *
+     * @param id The document id.
+     */
+    public void remove(long id) {
+        writeLock.lock();
+        try {
+            removeTerms(id);
+            texts.remove(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Remove every document from the index.
+     */
+    public void clear() {
+        writeLock.lock();
+        try {
+            postings.clear();
+            terms.clear();
+            texts.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Number of documents in the index.
+     */
+    public int size() {
+        return texts.size();
+    }
+
+    /**
+     * Find the documents matching every token of the query, most relevant first.
+     *
+     * @param query  Free text; each token matches whole terms or term prefixes.
+     * @param offset Number of hits to skip.
+     * @param limit  Maximum number of hits to return.
+     * @return A page of hits with the total number of matches; no next offset is
+     * given past {@link #MAX_WINDOW}.
+     * @throws IllegalArgumentException If {@code offset + limit} exceeds {@link #MAX_WINDOW}.
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        if (offset < 0 || limit < 0 || offset > MAX_WINDOW - limit) {
+            throw new IllegalArgumentException("offset + limit must not exceed " + MAX_WINDOW);
+        }
+        String[] tokens = query == null ? new String[0] : tokenize(query);
+        if (tokens.length == 0) {
+            return new SearchResult(List.of(), 0, null);
+        }
+
+        // Drive the search from the most selective token and verify the others per candidate
+        List<Set<Long>> driver = null;
+        int driverSize = Integer.MAX_VALUE;
+        for (String token : tokens) {
+            List<Set<Long>> matches = new ArrayList<>(prefixRange(token).values());
+            int size = matches.stream().mapToInt(Set::size).sum();
+            if (size < driverSize) {
+                driver = matches;
+                driverSize = size;
+            }
+        }
+        if (driverSize == 0) {
+            return new SearchResult(List.of(), 0, null);
+        }
+
+        Set<Long> seen = new HashSet<>();
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(RELEVANCE.reversed());
+        int keep = offset + limit;
+        int total = 0;
+        for (Collection<Long> ids : driver) {
+            for (Long id : ids) {
+                if (!seen.add(id)) {
+                    continue;
+                }
+                double score = score(id, tokens);
+                if (score <= 0) {
+                    continue;
+                }
+                total++;
+                top.add(new SearchHit(id, texts.get(id), score));
+                if (top.size() > keep) {
+                    top.poll();
+                }
+            }
+        }
+
+        List<SearchHit> ranked = new ArrayList<>(top);
+        ranked.sort(RELEVANCE);
+        List<SearchHit> page = offset >= ranked.size()
+                ? List.of()
+                : ranked.subList(offset, Math.min(ranked.size(), keep));
+        Integer nextOffset = keep < total && keep < MAX_WINDOW ? keep : null;
+        return new SearchResult(page, total, nextOffset);
+    }
+
+    /**
+     * Split text into lower-case, accent-free terms.
+     */
+    static String[] tokenize(String text) {
+        String normalized = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARATORS.split(normalized.toLowerCase(Locale.ROOT)))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private NavigableMap<String, Set<Long>> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private double score(Long id, String[] tokens) {
+        String[] documentTerms = terms.get(id);
+        if (documentTerms == null) {
+            return 0;
+        }
+        double score = 0;
+        for (String token : tokens) {
+            double best = 0;
+            for (String term : documentTerms) {
+                if (term.equals(token)) {
+                    best = EXACT_MATCH;
+                    break;
+                }
+                if (term.startsWith(token)) {
+                    best = PREFIX_MATCH;
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            score += best;
+        }
+        return score + 1.0 / documentTerms.length;
+    }
+
+    private void removeTerms(long id) {
+        String[] previous = terms.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous) {
+            postings.computeIfPresent(term, (t, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
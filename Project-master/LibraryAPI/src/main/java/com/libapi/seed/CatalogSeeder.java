@@ -0,0 +1,143 @@
+package com.libapi.seed;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.LongFunction;
+
+/**
+ * Fills an empty database with reproducible synthetic data.
+ * <p>
+ * Rows are written with explicit ids through batched JDBC inserts, so entity i
+ * of each table has id i; afterwards the id sequences are moved past the
+ * generated ids so that the application can keep inserting.
+ */
+@Component
+public class CatalogSeeder {
+
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Must match the allocationSize of the entity sequence generators.
+     */
+    private static final int SEQUENCE_ALLOCATION = 50;
+
+    private static final String[] WORDS = {
+            "shadow", "river", "garden", "winter", "empire", "silent", "glass", "ocean", "crown", "forest",
+            "secret", "iron", "summer", "paper", "stone", "night", "light", "house", "storm", "golden",
+            "last", "city", "dream", "fire", "wind", "moon", "island", "letter", "road", "memory"
+    };
+
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Boris", "Clara", "Daniel", "Elena", "Felix", "Grace", "Hugo", "Irina", "Jonas",
+            "Katya", "Leo", "Maria", "Nikolai", "Olga", "Peter", "Rosa", "Stefan", "Tanya", "Viktor"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Ivanova", "Petrov", "Smith", "Garcia", "Novak", "Keller", "Rossi", "Dimitrov", "Larsen", "Moreau",
+            "Hughes", "Costa", "Weber", "Nowak", "Popescu", "Berg", "Silva", "Young", "Marin", "Stone"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CatalogSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Generate the data described by the plan. The tables must be empty.
+     *
+     * @param plan Row counts and random seed.
+     */
+    public void seed(SeedPlan plan) {
+        SplittableRandom random = new SplittableRandom(plan.getSeed());
+
+        insertNamed("INSERT INTO library (id, name, version, last_modified) VALUES (?, ?, 0, CURRENT_TIMESTAMP)",
+                plan.getLibraries(), id -> "Library " + id);
+        insertNamed("INSERT INTO customer (id, name, version, last_modified) VALUES (?, ?, 0, CURRENT_TIMESTAMP)",
+                plan.getCustomers(), id -> personName(random));
+        insertNamed("INSERT INTO author (id, name, version, last_modified) VALUES (?, ?, 0, CURRENT_TIMESTAMP)",
+                plan.getAuthors(), id -> personName(random));
+        insertBooks(plan, random);
+
+        restartSequence("library_seq", plan.getLibraries());
+        restartSequence("customer_seq", plan.getCustomers());
+        restartSequence("author_seq", plan.getAuthors());
+        restartSequence("book_seq", plan.getBooks());
+    }
+
+    private void insertNamed(String sql, int count, LongFunction<String> name) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long id = 1; id <= count; id++) {
+            batch.add(new Object[]{id, name.apply(id)});
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+
+    private void insertBooks(SeedPlan plan, SplittableRandom random) {
+        List<Object[]> books = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> links = new ArrayList<>(BATCH_SIZE * plan.getMaxAuthorsPerBook());
+        ZipfDistribution customers = distribution(plan.getCustomers(), plan.getSkew());
+        ZipfDistribution libraries = distribution(plan.getLibraries(), plan.getSkew());
+        ZipfDistribution authors = distribution(plan.getAuthors(), plan.getSkew());
+
+        for (long id = 1; id <= plan.getBooks(); id++) {
+            Long customerId = customers != null && random.nextDouble() < plan.getCheckedOutRatio()
+                    ? customers.sample(random)
+                    : null;
+            String title = title(random);
+            Long libraryId = libraries != null ? libraries.sample(random) : null;
+            books.add(new Object[]{id, title, customerId, libraryId});
+            if (authors != null && plan.getMaxAuthorsPerBook() > 0) {
+                int authorCount = 1 + random.nextInt(plan.getMaxAuthorsPerBook());
+                long firstAuthor = authors.sample(random);
+                for (int i = 0; i < authorCount && i < plan.getAuthors(); i++) {
+                    links.add(new Object[]{(firstAuthor - 1 + i) % plan.getAuthors() + 1, id});
+                }
+            }
+
+            if (books.size() == BATCH_SIZE || id == plan.getBooks()) {
+                jdbcTemplate.batchUpdate("INSERT INTO book (id, title, customer_id, library_id, version, last_modified)"
+                        + " VALUES (?, ?, ?, ?, 0, CURRENT_TIMESTAMP)", books);
+                jdbcTemplate.batchUpdate("INSERT INTO book_author (author_id, book_id) VALUES (?, ?)", links);
+                books.clear();
+                links.clear();
+            }
+        }
+    }
+
+    private void restartSequence(String sequence, int maxId) {
+        // The pooled optimizer hands out the block ending at the returned value,
+        // so restart one full allocation past the highest generated id.
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + SEQUENCE_ALLOCATION));
+    }
+
+    private static ZipfDistribution distribution(int count, double skew) {
+        return count > 0 ? new ZipfDistribution(count, skew) : null;
+    }
+
+    private static String title(SplittableRandom random) {
+        int words = 2 + random.nextInt(3);
+        StringBuilder title = new StringBuilder("The");
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            title.append(' ').append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        }
+        return title.toString();
+    }
+
+    private static String personName(SplittableRandom random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+}
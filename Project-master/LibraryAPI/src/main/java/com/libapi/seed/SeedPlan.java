@@ -0,0 +1,41 @@
+package com.libapi.seed;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * How much synthetic data {@link CatalogSeeder} generates, and from which random seed.
+ */
+@Getter
+@AllArgsConstructor
+public class SeedPlan {
+
+    private final int libraries;
+
+    private final int books;
+
+    private final int authors;
+
+    private final int customers;
+
+    /**
+     * Largest number of authors linked to a single book.
+     */
+    private final int maxAuthorsPerBook;
+
+    /**
+     * Fraction of books, between 0 and 1, that are checked out to a customer.
+     */
+    private final double checkedOutRatio;
+
+    /**
+     * Zipf exponent of how books spread over libraries, authors and customers; 0 spreads them evenly.
+     * Low ids are the popular ones: around 1, library 1 holds far more books than library 1000.
+     */
+    private final double skew;
+
+    /**
+     * Seed of the random generator; the same plan always produces the same data.
+     */
+    private final long seed;
+}
@@ -0,0 +1,73 @@
+package com.libapi.seed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seeds the database at startup when {@code libapi.seed.enabled=true}, before
+ * the application reports itself ready.
+ * <p>
+ * The {@code seed} profile enables it at production-like scale against its
+ * own database file:
+ * <pre>
+ * mvn spring-boot:run -Dspring-boot.run.profiles=seed
+ * </pre>
+ * Every count can be overridden, e.g. {@code --libapi.seed.books=100000}; add
+ * {@code --libapi.startup.exit-when-ready=true} to exit once seeding is done.
+ * A database that already has books is left untouched. The flag is read at
+ * runtime for the same reason as in {@link com.libapi.config.StartupConfig}.
+ */
+@Component
+public class SeedRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SeedRunner.class);
+
+    private final CatalogSeeder catalogSeeder;
+    private final JdbcTemplate jdbcTemplate;
+    private final Environment environment;
+
+    @Autowired
+    public SeedRunner(CatalogSeeder catalogSeeder, JdbcTemplate jdbcTemplate, Environment environment) {
+        this.catalogSeeder = catalogSeeder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.environment = environment;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!environment.getProperty("libapi.seed.enabled", Boolean.class, false)) {
+            return;
+        }
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book", Long.class);
+        if (existing != null && existing > 0) {
+            log.info("Database already has {} books, not seeding", existing);
+            return;
+        }
+
+        SeedPlan plan = new SeedPlan(
+                count("libraries", 10_000),
+                count("books", 5_000_000),
+                count("authors", 1_000_000),
+                count("customers", 2_000_000),
+                count("max-authors-per-book", 3),
+                environment.getProperty("libapi.seed.checked-out-ratio", Double.class, 0.2),
+                environment.getProperty("libapi.seed.skew", Double.class, 1.0),
+                environment.getProperty("libapi.seed.random-seed", Long.class, 42L));
+        log.info("Seeding {} libraries, {} books, {} authors and {} customers with skew {}",
+                plan.getLibraries(), plan.getBooks(), plan.getAuthors(), plan.getCustomers(), plan.getSkew());
+        long start = System.nanoTime();
+        catalogSeeder.seed(plan);
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Seeded in {} ms ({} books/s)", millis, plan.getBooks() * 1000L / millis);
+    }
+
+    private int count(String name, int defaultValue) {
+        return environment.getProperty("libapi.seed." + name, Integer.class, defaultValue);
+    }
+}
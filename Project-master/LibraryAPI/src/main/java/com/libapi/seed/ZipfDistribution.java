@@ -0,0 +1,77 @@
+package com.libapi.seed;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zipf-distributed ranks between 1 and n: rank k is drawn with probability
+ * proportional to 1 / k^exponent, so a few low ranks are very popular and
+ * the rest form a long tail. An exponent of 0 gives uniform ranks.
+ * <p>
+ * Uses rejection-inversion sampling (Hörmann and Derflinger, 1996), which
+ * needs constant time and memory per sample however large n is.
+ */
+public final class ZipfDistribution {
+
+    private final long n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    /**
+     * @param n        The largest rank, at least 1.
+     * @param exponent The skew, at least 0; around 1 matches most popularity data.
+     */
+    public ZipfDistribution(long n, double exponent) {
+        if (n < 1 || exponent < 0) {
+            throw new IllegalArgumentException("Need n >= 1 and exponent >= 0, got " + n + " and " + exponent);
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * Draw a rank.
+     *
+     * @param random The source of randomness.
+     * @return A rank between 1 and n.
+     */
+    public long sample(SplittableRandom random) {
+        if (exponent == 0) {
+            return 1 + random.nextLong(n);
+        }
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            long k = Math.max(1, Math.min(n, (long) (x + 0.5)));
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return expm1OverX((1 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = Math.max(-1, x * (1 - exponent));
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+    private static double log1pOverX(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    private static double expm1OverX(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+    }
+}
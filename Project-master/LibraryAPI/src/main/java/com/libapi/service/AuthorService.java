@@ -1,37 +1,90 @@
 package com.libapi.service;
 
+import com.libapi.config.CacheConfig;
+import com.libapi.datasource.PrimaryReads;
+import com.libapi.dto.BatchResult;
+import com.libapi.dto.BookAuthorLink;
+import com.libapi.dto.ChangeEvent;
+import com.libapi.dto.ChangeOperation;
+import com.libapi.dto.CursorPage;
+import com.libapi.dto.DeleteResult;
+import com.libapi.dto.LinkResult;
+import com.libapi.dto.LinkStatus;
 import com.libapi.entity.AuthorEntity;
 import com.libapi.entity.BookEntity;
 import com.libapi.repository.AuthorRepository;
+import com.libapi.repository.BookAuthorLinkRepository;
 import com.libapi.repository.BookRepository;
+import com.libapi.repository.CascadeDeleteRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Service class for managing author-related operations.
  */
 @Service
+@Timed("libapi.service")
 public class AuthorService {
 
     private final AuthorRepository authorRepository;
     private final BookRepository bookRepository;
+    private final BookAuthorLinkRepository bookAuthorLinkRepository;
+    private final CascadeDeleteRepository cascadeDeleteRepository;
+    private final SearchIndexService searchIndexService;
+    private final ChangeFeedService changeFeedService;
+    private final ReadCoalescer readCoalescer;
+    private final TransactionTemplate readOnlyTransaction;
 
     @Autowired
-    public AuthorService(AuthorRepository authorRepository, BookRepository bookRepository) {
+    public AuthorService(
+            AuthorRepository authorRepository,
+            BookRepository bookRepository,
+            BookAuthorLinkRepository bookAuthorLinkRepository,
+            CascadeDeleteRepository cascadeDeleteRepository,
+            SearchIndexService searchIndexService,
+            ChangeFeedService changeFeedService,
+            ReadCoalescer readCoalescer,
+            PlatformTransactionManager transactionManager) {
         this.authorRepository = authorRepository;
         this.bookRepository = bookRepository;
+        this.bookAuthorLinkRepository = bookAuthorLinkRepository;
+        this.cascadeDeleteRepository = cascadeDeleteRepository;
+        this.searchIndexService = searchIndexService;
+        this.changeFeedService = changeFeedService;
+        this.readCoalescer = readCoalescer;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     /**
-     * Retrieve a list of all authors.
+     * Retrieve a page of authors ordered by id.
      *
-     * @return List of AuthorEntity objects.
+     * @param after The id of the last author of the previous page, or null for the first page.
+     * @param limit The requested page size, capped at {@link CursorPage#MAX_LIMIT}.
+     * @return A page of AuthorEntity objects with the cursor of the next page.
      */
-    public List<AuthorEntity> getAllAuthors() {
-        return authorRepository.findAll();
+    public CursorPage<AuthorEntity> getAllAuthors(Long after, Integer limit) {
+        int size = CursorPage.clampLimit(limit);
+        long from = after == null ? 0L : after;
+        return readCoalescer.load(CacheConfig.AUTHORS, List.of(from, size), () -> readOnlyTransaction.execute(status -> {
+            List<AuthorEntity> rows = authorRepository.findByIdGreaterThanOrderByIdAsc(from, PageRequest.ofSize(size + 1));
+            return CursorPage.of(rows, size, AuthorEntity::getId);
+        }));
     }
 
     /**
@@ -40,9 +93,21 @@ public class AuthorService {
      * @param id The unique identifier of the author.
      * @return AuthorEntity object or null if not found.
      */
+    @Cacheable(cacheNames = CacheConfig.AUTHORS, key = "#id", unless = "#result == null")
     public AuthorEntity getAuthorById(Long id) {
-        Optional<AuthorEntity> author = authorRepository.findById(id);
-        return author.orElse(null);
+        return PrimaryReads.call(() -> readCoalescer.load(CacheConfig.AUTHORS, id,
+                () -> readOnlyTransaction.execute(status -> authorRepository.findById(id).orElse(null))));
+    }
+
+    /**
+     * Retrieve many authors by their unique identifiers, in chunked IN queries.
+     *
+     * @param ids The unique identifiers, at most {@link BatchResult#MAX_IDS}.
+     * @return The authors found, in the requested order, and the ids that were not found.
+     */
+    @Transactional(readOnly = true)
+    public BatchResult<AuthorEntity> getAuthorsByIds(List<Long> ids) {
+        return BatchLoader.load(ids, authorRepository::findByIdIn, AuthorEntity::getId);
     }
 
     /**
@@ -51,8 +116,13 @@ public class AuthorService {
      * @param authorEntity The author entity to be created.
      * @return Created AuthorEntity object.
      */
+    @Transactional
     public AuthorEntity createAuthor(AuthorEntity authorEntity) {
-        return authorRepository.save(authorEntity);
+        authorEntity.setId(null);
+        AuthorEntity author = authorRepository.save(authorEntity);
+        searchIndexService.indexAuthor(author);
+        changeFeedService.record(ChangeEvent.AUTHORS, author.getId(), ChangeOperation.CREATED);
+        return author;
     }
 
     /**
@@ -60,24 +130,103 @@ public class AuthorService {
      *
      * @param id           The unique identifier of the author to be updated.
      * @param authorEntity The updated author entity.
+     * @param ifMatch Whether the author as stored matches the client's If-Match header, or null to skip the check.
      * @return Updated AuthorEntity object or null if not found.
+     * @throws org.springframework.web.server.ResponseStatusException 412 if the author does not match.
      */
-    public AuthorEntity updateAuthor(Long id, AuthorEntity authorEntity) {
-        if (authorRepository.existsById(id)) {
-            authorEntity.setId(id);
-            return authorRepository.save(authorEntity);
-        } else {
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.AUTHORS, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.CUSTOMERS, CacheConfig.LIBRARIES}, allEntries = true)
+    })
+    public AuthorEntity updateAuthor(Long id, AuthorEntity authorEntity, Predicate<? super AuthorEntity> ifMatch) {
+        AuthorEntity author = Preconditions.checkMatch(ifMatch, authorRepository.findById(id).orElse(null));
+        if (author == null) {
             return null; // Handle not found error
         }
+        author.setName(authorEntity.getName());
+        author = authorRepository.saveAndFlush(author);
+        searchIndexService.indexAuthor(author);
+        changeFeedService.record(ChangeEvent.AUTHORS, id, ChangeOperation.UPDATED);
+        return author;
+    }
+
+    /**
+     * Apply a JSON merge patch to a author with one UPDATE of the name. Unlike
+     * {@link #updateAuthor} the author is only loaded to check an If-Match condition, and its
+     * associations are never written.
+     *
+     * @param id              The unique identifier of the author to be patched.
+     * @param patch           The patch; only {@code name} may be set.
+     * @param ifMatch Whether the author as stored matches the client's If-Match header, or null to skip the check.
+     * @return true if the author exists, false if not found.
+     * @throws org.springframework.web.server.ResponseStatusException 400 if the patch sets another field,
+     *                                                                412 if the author does not match.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.AUTHORS, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.CUSTOMERS, CacheConfig.LIBRARIES}, allEntries = true)
+    })
+    public boolean patchAuthor(Long id, Map<String, Object> patch, Predicate<? super AuthorEntity> ifMatch) {
+        Long expectedVersion = ifMatch == null
+                ? null
+                : Preconditions.checkMatch(ifMatch, authorRepository.findById(id).orElse(null)).getVersion();
+        if (!MergePatches.changes(patch, "name")) {
+            return authorRepository.existsById(id);
+        }
+        String name = (String) patch.get("name");
+        if (authorRepository.updateName(id, name, expectedVersion, Instant.now()) == 0) {
+            return MergePatches.notUpdated(expectedVersion, authorRepository.existsById(id));
+        }
+        searchIndexService.indexAuthor(id, name);
+        changeFeedService.record(ChangeEvent.AUTHORS, id, ChangeOperation.UPDATED);
+        return true;
     }
 
     /**
-     * Delete an author by their unique identifier.
+     * Delete an author by their unique identifier. Their links to books are
+     * removed with one DELETE and without loading the books.
      *
      * @param id The unique identifier of the author to be deleted.
+     * @param ifMatch Whether the author as stored matches the client's If-Match header, or null to skip the check.
+     * @throws org.springframework.web.server.ResponseStatusException 412 if the author does not match.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.AUTHORS, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.CUSTOMERS, CacheConfig.LIBRARIES}, allEntries = true)
+    })
+    public void deleteAuthor(Long id, Predicate<? super AuthorEntity> ifMatch) {
+        boolean exists = cascadeDeleteRepository.lockAuthors(List.of(id)).containsKey(id);
+        if (ifMatch != null) {
+            // Read after the lock, so the entity cannot change before it is deleted
+            Preconditions.checkMatch(ifMatch, exists ? authorRepository.findById(id).orElse(null) : null);
+        }
+        if (!exists) {
+            return;
+        }
+        removeAuthors(List.of(id));
+    }
+
+    /**
+     * Delete many authors in one transaction, with a few statements per chunk of
+     * {@link BatchLoader#CHUNK_SIZE} authors however many books they wrote.
+     *
+     * @param ids The unique identifiers of the authors, at most {@link DeleteResult#MAX_IDS}.
+     * @return Which authors were deleted and which did not exist.
      */
-    public void deleteAuthor(Long id) {
-        authorRepository.deleteById(id);
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.AUTHORS, CacheConfig.BOOKS, CacheConfig.CUSTOMERS, CacheConfig.LIBRARIES}, allEntries = true)
+    public DeleteResult deleteAuthors(List<Long> ids) {
+        return BulkDeletes.delete(BulkDeletes.distinct(ids), cascadeDeleteRepository::lockAuthors, this::removeAuthors);
+    }
+
+    private void removeAuthors(List<Long> ids) {
+        cascadeDeleteRepository.unlinkAuthorBooks(ids);
+        cascadeDeleteRepository.deleteAuthors(ids);
+        ids.forEach(searchIndexService::removeAuthor);
+        changeFeedService.recordEach(ChangeEvent.AUTHORS, ids, ChangeOperation.DELETED);
     }
 
     /**
@@ -87,6 +236,12 @@ public class AuthorService {
      * @param bookId   The unique identifier of the book to be associated.
      * @return Updated AuthorEntity object or null if not found.
      */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.AUTHORS, key = "#authorId"),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId"),
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.LIBRARIES}, allEntries = true)
+    })
     public AuthorEntity associateBookWithAuthor(Long authorId, Long bookId) {
         AuthorEntity author = authorRepository.findById(authorId).orElse(null);
         BookEntity book = bookRepository.findById(bookId).orElse(null);
@@ -96,10 +251,95 @@ public class AuthorService {
             book.getAuthors().add(author);
             authorRepository.save(author);
             bookRepository.save(book);
+            changeFeedService.record(ChangeEvent.AUTHORS, authorId, ChangeOperation.LINKED, bookId);
 
             return author;
         } else {
             return null; // Handle not found error
         }
     }
+
+    /**
+     * Associate many books with an author, writing only the missing book_author rows.
+     *
+     * @param authorId The unique identifier of the author.
+     * @param bookIds  The unique identifiers of the books, at most {@link LinkResult#MAX_IDS}.
+     * @return The outcome for every book, or null if the author does not exist.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.AUTHORS, key = "#authorId"),
+            @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.CUSTOMERS, CacheConfig.LIBRARIES}, allEntries = true)
+    })
+    public LinkResult addBooksToAuthor(Long authorId, List<Long> bookIds) {
+        List<Long> ids = BulkLinks.distinct(bookIds);
+        if (!authorRepository.existsById(authorId)) {
+            return null; // Handle not found error
+        }
+        Map<Long, LinkStatus> results = new LinkedHashMap<>();
+        for (List<Long> chunk : BulkLinks.chunks(ids)) {
+            Map<Long, Boolean> linked = bookAuthorLinkRepository.findLinks(authorId, chunk);
+            List<BookAuthorLink> missing = new ArrayList<>();
+            for (Long bookId : chunk) {
+                Boolean isLinked = linked.get(bookId);
+                if (isLinked == null) {
+                    results.put(bookId, LinkStatus.NOT_FOUND);
+                } else if (isLinked) {
+                    results.put(bookId, LinkStatus.UNCHANGED);
+                } else {
+                    results.put(bookId, LinkStatus.LINKED);
+                    BookAuthorLink link = new BookAuthorLink();
+                    link.setAuthorId(authorId);
+                    link.setBookId(bookId);
+                    missing.add(link);
+                }
+            }
+            if (!missing.isEmpty()) {
+                bookAuthorLinkRepository.mergeAll(missing);
+                changeFeedService.recordAll(ChangeEvent.AUTHORS, authorId, ChangeOperation.LINKED,
+                        missing.stream().map(BookAuthorLink::getBookId).toList());
+            }
+        }
+        return new LinkResult(results);
+    }
+
+    /**
+     * Remove the association between an author and many books.
+     *
+     * @param authorId The unique identifier of the author.
+     * @param bookIds  The unique identifiers of the books, at most {@link LinkResult#MAX_IDS}.
+     * @return The outcome for every book, or null if the author does not exist.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.AUTHORS, key = "#authorId"),
+            @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.CUSTOMERS, CacheConfig.LIBRARIES}, allEntries = true)
+    })
+    public LinkResult removeBooksFromAuthor(Long authorId, List<Long> bookIds) {
+        List<Long> ids = BulkLinks.distinct(bookIds);
+        if (!authorRepository.existsById(authorId)) {
+            return null; // Handle not found error
+        }
+        Map<Long, LinkStatus> results = new LinkedHashMap<>();
+        for (List<Long> chunk : BulkLinks.chunks(ids)) {
+            Map<Long, Boolean> linked = bookAuthorLinkRepository.findLinks(authorId, chunk);
+            List<Long> toRemove = new ArrayList<>();
+            for (Long bookId : chunk) {
+                Boolean isLinked = linked.get(bookId);
+                if (isLinked == null) {
+                    results.put(bookId, LinkStatus.NOT_FOUND);
+                } else if (isLinked) {
+                    results.put(bookId, LinkStatus.UNLINKED);
+                    toRemove.add(bookId);
+                } else {
+                    results.put(bookId, LinkStatus.UNCHANGED);
+                }
+            }
+            if (!toRemove.isEmpty()) {
+                bookAuthorLinkRepository.deleteAll(authorId, toRemove);
+                changeFeedService.recordAll(ChangeEvent.AUTHORS, authorId, ChangeOperation.UNLINKED, toRemove);
+            }
+        }
+        return new LinkResult(results);
+    }
 }
@@ -0,0 +1,66 @@
+package com.libapi.service;
+
+import com.libapi.dto.BatchResult;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Loads entities by a list of ids with as few {@code IN} queries as possible.
+ */
+final class BatchLoader {
+
+    /**
+     * Ids per {@code IN} list, so statements stay small enough for the database to plan and cache.
+     */
+    static final int CHUNK_SIZE = 500;
+
+    private BatchLoader() {
+    }
+
+    /**
+     * Fetch the entities with the given ids.
+     *
+     * @param ids    The requested ids; duplicates are fetched and returned once.
+     * @param finder Fetches the entities of one chunk of ids, in any order.
+     * @param idOf   Extracts the id of an entity.
+     * @return The entities in the order of the requested ids, and the ids that were not found.
+     * @throws ResponseStatusException 400 if more than {@link BatchResult#MAX_IDS} ids are requested.
+     */
+    static <T> BatchResult<T> load(List<Long> ids, Function<List<Long>, List<T>> finder, Function<T, Long> idOf) {
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        unique.remove(null);
+        if (unique.size() > BatchResult.MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + BatchResult.MAX_IDS + " ids can be fetched at once");
+        }
+
+        List<Long> requested = new ArrayList<>(unique);
+        Map<Long, T> found = new HashMap<>(requested.size() * 2);
+        for (int from = 0; from < requested.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = requested.subList(from, Math.min(from + CHUNK_SIZE, requested.size()));
+            for (T entity : finder.apply(chunk)) {
+                found.put(idOf.apply(entity), entity);
+            }
+        }
+
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            T entity = found.get(id);
+            if (entity != null) {
+                items.add(entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResult<>(items, missing);
+    }
+}
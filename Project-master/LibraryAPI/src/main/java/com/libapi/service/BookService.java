@@ -1,33 +1,75 @@
 package com.libapi.service;
 
+import com.libapi.config.CacheConfig;
+import com.libapi.datasource.PrimaryReads;
+import com.libapi.dto.BatchResult;
+import com.libapi.dto.ChangeEvent;
+import com.libapi.dto.ChangeOperation;
+import com.libapi.dto.CursorPage;
 import com.libapi.entity.BookEntity;
 import com.libapi.repository.BookRepository;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Service class for managing book-related operations.
  */
 @Service
+@Timed("libapi.service")
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final SearchIndexService searchIndexService;
+    private final ChangeFeedService changeFeedService;
+    private final ReadCoalescer readCoalescer;
+    private final TransactionTemplate readOnlyTransaction;
 
     @Autowired
-    public BookService(BookRepository bookRepository) {
+    public BookService(
+            BookRepository bookRepository,
+            SearchIndexService searchIndexService,
+            ChangeFeedService changeFeedService,
+            ReadCoalescer readCoalescer,
+            PlatformTransactionManager transactionManager) {
         this.bookRepository = bookRepository;
+        this.searchIndexService = searchIndexService;
+        this.changeFeedService = changeFeedService;
+        this.readCoalescer = readCoalescer;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     /**
-     * Retrieve a list of all books.
+     * Retrieve a page of books ordered by id.
      *
-     * @return List of BookEntity objects.
+     * @param after The id of the last book of the previous page, or null for the first page.
+     * @param limit The requested page size, capped at {@link CursorPage#MAX_LIMIT}.
+     * @return A page of BookEntity objects with the cursor of the next page.
      */
-    public List<BookEntity> getAllBooks() {
-        return bookRepository.findAll();
+    public CursorPage<BookEntity> getAllBooks(Long after, Integer limit) {
+        int size = CursorPage.clampLimit(limit);
+        long from = after == null ? 0L : after;
+        return readCoalescer.load(CacheConfig.BOOKS, List.of(from, size), () -> readOnlyTransaction.execute(status -> {
+            List<BookEntity> rows = bookRepository.findByIdGreaterThanOrderByIdAsc(from, PageRequest.ofSize(size + 1));
+            CursorPage<BookEntity> page = CursorPage.of(rows, size, BookEntity::getId);
+            // Shared with concurrent identical requests, which render it outside this session
+            page.getItems().forEach(book -> Hibernate.initialize(book.getAuthors()));
+            return page;
+        }));
     }
 
     /**
@@ -36,9 +78,21 @@ public class BookService {
      * @param id The unique identifier of the book.
      * @return BookEntity object or null if not found.
      */
+    @Cacheable(cacheNames = CacheConfig.BOOKS, key = "#id", unless = "#result == null")
     public BookEntity getBookById(Long id) {
-        Optional<BookEntity> book = bookRepository.findById(id);
-        return book.orElse(null);
+        return PrimaryReads.call(() -> readCoalescer.load(CacheConfig.BOOKS, id,
+                () -> readOnlyTransaction.execute(status -> bookRepository.findById(id).orElse(null))));
+    }
+
+    /**
+     * Retrieve many books by their unique identifiers, in chunked IN queries.
+     *
+     * @param ids The unique identifiers, at most {@link BatchResult#MAX_IDS}.
+     * @return The books found, in the requested order, and the ids that were not found.
+     */
+    @Transactional(readOnly = true)
+    public BatchResult<BookEntity> getBooksByIds(List<Long> ids) {
+        return BatchLoader.load(ids, bookRepository::findByIdIn, BookEntity::getId);
     }
 
     /**
@@ -47,8 +101,13 @@ public class BookService {
      * @param bookEntity The book entity to be created.
      * @return Created BookEntity object.
      */
+    @Transactional
     public BookEntity createBook(BookEntity bookEntity) {
-        return bookRepository.save(bookEntity);
+        bookEntity.setId(null);
+        BookEntity book = bookRepository.save(bookEntity);
+        searchIndexService.indexBook(book);
+        changeFeedService.record(ChangeEvent.BOOKS, book.getId(), ChangeOperation.CREATED);
+        return book;
     }
 
     /**
@@ -56,23 +115,78 @@ public class BookService {
      *
      * @param id           The unique identifier of the book to be updated.
      * @param bookEntity The updated book entity.
+     * @param ifMatch Whether the book as stored matches the client's If-Match header, or null to skip the check.
      * @return Updated BookEntity object or null if not found.
+     * @throws org.springframework.web.server.ResponseStatusException 412 if the book does not match.
      */
-    public BookEntity updateBook(Long id, BookEntity bookEntity) {
-        if (bookRepository.existsById(id)) {
-            bookEntity.setId(id);
-            return bookRepository.save(bookEntity);
-        } else {
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.LIBRARIES}, allEntries = true)
+    })
+    public BookEntity updateBook(Long id, BookEntity bookEntity, Predicate<? super BookEntity> ifMatch) {
+        BookEntity book = Preconditions.checkMatch(ifMatch, bookRepository.findById(id).orElse(null));
+        if (book == null) {
             return null; // Handle not found error
         }
+        book.setTitle(bookEntity.getTitle());
+        book = bookRepository.saveAndFlush(book);
+        searchIndexService.indexBook(book);
+        changeFeedService.record(ChangeEvent.BOOKS, id, ChangeOperation.UPDATED);
+        return book;
+    }
+
+    /**
+     * Apply a JSON merge patch to a book with one UPDATE of the title. Unlike
+     * {@link #updateBook} the book is only loaded to check an If-Match condition, and its
+     * associations are never written.
+     *
+     * @param id              The unique identifier of the book to be patched.
+     * @param patch           The patch; only {@code title} may be set.
+     * @param ifMatch Whether the book as stored matches the client's If-Match header, or null to skip the check.
+     * @return true if the book exists, false if not found.
+     * @throws org.springframework.web.server.ResponseStatusException 400 if the patch sets another field,
+     *                                                                412 if the book does not match.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.LIBRARIES}, allEntries = true)
+    })
+    public boolean patchBook(Long id, Map<String, Object> patch, Predicate<? super BookEntity> ifMatch) {
+        Long expectedVersion = ifMatch == null
+                ? null
+                : Preconditions.checkMatch(ifMatch, bookRepository.findById(id).orElse(null)).getVersion();
+        if (!MergePatches.changes(patch, "title")) {
+            return bookRepository.existsById(id);
+        }
+        String title = (String) patch.get("title");
+        if (bookRepository.updateTitle(id, title, expectedVersion, Instant.now()) == 0) {
+            return MergePatches.notUpdated(expectedVersion, bookRepository.existsById(id));
+        }
+        searchIndexService.indexBook(id, title);
+        changeFeedService.record(ChangeEvent.BOOKS, id, ChangeOperation.UPDATED);
+        return true;
     }
 
     /**
      * Delete a book by its unique identifier.
      *
      * @param id The unique identifier of the book to be deleted.
+     * @param ifMatch Whether the book as stored matches the client's If-Match header, or null to skip the check.
+     * @throws org.springframework.web.server.ResponseStatusException 412 if the book does not match.
      */
-    public void deleteBook(Long id) {
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.LIBRARIES}, allEntries = true)
+    })
+    public void deleteBook(Long id, Predicate<? super BookEntity> ifMatch) {
+        if (ifMatch != null) {
+            Preconditions.checkMatch(ifMatch, bookRepository.findById(id).orElse(null));
+        }
         bookRepository.deleteById(id);
+        searchIndexService.removeBook(id);
+        changeFeedService.record(ChangeEvent.BOOKS, id, ChangeOperation.DELETED);
     }
 }
@@ -0,0 +1,65 @@
+package com.libapi.service;
+
+import com.libapi.dto.DeleteResult;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Request validation and chunking shared by the bulk delete operations.
+ */
+final class BulkDeletes {
+
+    private BulkDeletes() {
+    }
+
+    /**
+     * The distinct, non-null ids of a request, in request order.
+     *
+     * @throws ResponseStatusException 400 if there are more than {@link DeleteResult#MAX_IDS}.
+     */
+    static List<Long> distinct(List<Long> ids) {
+        LinkedHashSet<Long> unique = new LinkedHashSet<>(ids);
+        unique.remove(null);
+        if (unique.size() > DeleteResult.MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + DeleteResult.MAX_IDS + " ids can be deleted at once");
+        }
+        return new ArrayList<>(unique);
+    }
+
+    /**
+     * Delete the existing entities among the given ids, one chunk at a time.
+     *
+     * @param ids    The distinct ids to delete.
+     * @param lock   Locks a chunk of ids and returns the versions of those that exist.
+     * @param delete Detaches the books of a chunk of existing ids and deletes them.
+     * @return Which ids were deleted and which did not exist.
+     */
+    static DeleteResult delete(List<Long> ids, Function<List<Long>, Map<Long, Long>> lock, Consumer<List<Long>> delete) {
+        List<Long> deleted = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (List<Long> chunk : BulkLinks.chunks(ids)) {
+            Map<Long, Long> existing = lock.apply(chunk);
+            List<Long> found = new ArrayList<>();
+            for (Long id : chunk) {
+                if (existing.containsKey(id)) {
+                    found.add(id);
+                } else {
+                    missing.add(id);
+                }
+            }
+            if (!found.isEmpty()) {
+                delete.accept(found);
+                deleted.addAll(found);
+            }
+        }
+        return new DeleteResult(deleted, missing);
+    }
+}
@@ -0,0 +1,25 @@
+package com.libapi.service;
+
+import com.libapi.dto.BulkImportResult;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A bulk import that stopped part way, with the rows committed before it stopped.
+ */
+public class BulkImportException extends ResponseStatusException {
+
+    private final transient BulkImportResult result;
+
+    public BulkImportException(HttpStatusCode status, BulkImportResult result, Throwable cause) {
+        super(status, result.getError(), cause);
+        this.result = result;
+    }
+
+    /**
+     * The rows committed before the failure, and the error.
+     */
+    public BulkImportResult getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,209 @@
+package com.libapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libapi.config.CacheConfig;
+import com.libapi.dto.BookAuthorLink;
+import com.libapi.dto.BulkImportResult;
+import com.libapi.dto.ChangeEvent;
+import com.libapi.dto.ChangeOperation;
+import com.libapi.entity.AuthorEntity;
+import com.libapi.entity.BookEntity;
+import com.libapi.repository.BookAuthorLinkRepository;
+import com.libapi.repository.BulkInsertRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Service class for importing large catalogs in chunked, JDBC-batched transactions.
+ * <p>
+ * Request bodies are read incrementally, either as a JSON array or as
+ * newline-delimited JSON, so only one chunk is held in memory at a time.
+ * <p>
+ * Every chunk commits on its own, together with its entries in the change
+ * feed. An import that fails part way, on an invalid row or a chunk that
+ * cannot be written, keeps the chunks committed
+ * before it and throws a {@link BulkImportException} reporting how many rows
+ * they hold.
+ */
+@Service
+public class BulkImportService {
+
+    /**
+     * Number of rows written per transaction.
+     */
+    public static final int CHUNK_SIZE = 1000;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final BulkInsertRepository bulkInsertRepository;
+    private final BookAuthorLinkRepository bookAuthorLinkRepository;
+    private final SearchIndexService searchIndexService;
+    private final ChangeFeedService changeFeedService;
+    private final ReadCoalescer readCoalescer;
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public BulkImportService(
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            BulkInsertRepository bulkInsertRepository,
+            BookAuthorLinkRepository bookAuthorLinkRepository,
+            SearchIndexService searchIndexService,
+            ChangeFeedService changeFeedService,
+            ReadCoalescer readCoalescer,
+            CacheManager cacheManager) {
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.bulkInsertRepository = bulkInsertRepository;
+        this.bookAuthorLinkRepository = bookAuthorLinkRepository;
+        this.searchIndexService = searchIndexService;
+        this.changeFeedService = changeFeedService;
+        this.readCoalescer = readCoalescer;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Create books from a stream of book objects. Ids and authors in the input are ignored.
+     *
+     * @param body JSON array or NDJSON of books.
+     * @return Number of books created and the import rate.
+     * @throws BulkImportException 400 if a book cannot be stored, such as a title too long for its column.
+     */
+    public BulkImportResult importBooks(InputStream body) throws IOException {
+        return importRows(body, BookEntity.class, book -> {
+            book.setId(null);
+            book.getAuthors().clear();
+        }, chunk -> transactionTemplate.executeWithoutResult(status -> {
+            bulkInsertRepository.persistAll(chunk);
+            changeFeedService.recordEach(ChangeEvent.BOOKS, ids(chunk, BookEntity::getId), ChangeOperation.CREATED);
+            chunk.forEach(searchIndexService::indexBook);
+        }));
+    }
+
+    /**
+     * Create authors from a stream of author objects. Ids in the input are ignored.
+     *
+     * @param body JSON array or NDJSON of authors.
+     * @return Number of authors created and the import rate.
+     * @throws BulkImportException 400 if an author cannot be stored, such as a name too long for its column.
+     */
+    public BulkImportResult importAuthors(InputStream body) throws IOException {
+        return importRows(body, AuthorEntity.class, author -> author.setId(null),
+                chunk -> transactionTemplate.executeWithoutResult(status -> {
+                    bulkInsertRepository.persistAll(chunk);
+                    changeFeedService.recordEach(ChangeEvent.AUTHORS, ids(chunk, AuthorEntity::getId), ChangeOperation.CREATED);
+                    chunk.forEach(searchIndexService::indexAuthor);
+                }));
+    }
+
+    /**
+     * Link existing books to existing authors from a stream of {authorId, bookId} pairs.
+     * The cached books, customers and libraries are evicted as each chunk commits.
+     * Every link is recorded as LINKED in the change feed, including links that already existed.
+     *
+     * @param body JSON array or NDJSON of links.
+     * @return Number of links processed and the import rate.
+     * @throws BulkImportException 400 if a link lacks an id or refers to a missing author or book.
+     */
+    public BulkImportResult importBookAuthorLinks(InputStream body) throws IOException {
+        return importRows(body, BookAuthorLink.class, link -> {
+            if (link.getAuthorId() == null || link.getBookId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "authorId and bookId are required");
+            }
+        }, chunk -> {
+            transactionTemplate.executeWithoutResult(status -> {
+                bookAuthorLinkRepository.mergeAll(chunk);
+                Map<Long, Set<Long>> booksByAuthor = new LinkedHashMap<>();
+                for (BookAuthorLink link : chunk) {
+                    booksByAuthor.computeIfAbsent(link.getAuthorId(), id -> new LinkedHashSet<>()).add(link.getBookId());
+                }
+                booksByAuthor.forEach((authorId, bookIds) ->
+                        changeFeedService.recordAll(ChangeEvent.AUTHORS, authorId, ChangeOperation.LINKED, bookIds));
+            });
+            clear(CacheConfig.BOOKS, CacheConfig.CUSTOMERS, CacheConfig.LIBRARIES);
+        });
+    }
+
+    private <T> BulkImportResult importRows(
+            InputStream body,
+            Class<T> type,
+            Consumer<T> prepare,
+            Consumer<List<T>> writeChunk) throws IOException {
+        long start = System.nanoTime();
+        long read = 0;
+        long imported = 0;
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (MappingIterator<T> rows = objectMapper.readerFor(type).readValues(body)) {
+            while (rows.hasNextValue()) {
+                T row = rows.nextValue();
+                read++;
+                prepare.accept(row);
+                chunk.add(row);
+                if (chunk.size() == CHUNK_SIZE) {
+                    imported += write(chunk, writeChunk);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                imported += write(chunk, writeChunk);
+            }
+        } catch (ResponseStatusException e) {
+            throw failed(HttpStatus.BAD_REQUEST, imported, start, "Row " + read + ": " + e.getReason(), e);
+        } catch (JsonProcessingException e) {
+            throw failed(HttpStatus.BAD_REQUEST, imported, start, "Row " + (read + 1) + " is not valid JSON", e);
+        } catch (DataIntegrityViolationException e) {
+            throw failed(HttpStatus.BAD_REQUEST, imported, start,
+                    "Rows " + (imported + 1) + " to " + read + " were not imported: a row refers to a missing entity"
+                            + " or has a missing or invalid value", e);
+        } catch (RuntimeException e) {
+            throw failed(HttpStatus.INTERNAL_SERVER_ERROR, imported, start,
+                    "Rows " + (imported + 1) + " to " + read + " were not imported", e);
+        }
+
+        return new BulkImportResult(imported, System.nanoTime() - start);
+    }
+
+    private <T> int write(List<T> chunk, Consumer<List<T>> writeChunk) {
+        writeChunk.accept(chunk);
+        readCoalescer.invalidateAfterCommit();
+        int written = chunk.size();
+        chunk.clear();
+        return written;
+    }
+
+    private static BulkImportException failed(HttpStatus status, long imported, long start, String error, Throwable cause) {
+        return new BulkImportException(status, new BulkImportResult(imported, System.nanoTime() - start, error), cause);
+    }
+
+    private void clear(String... cacheNames) {
+        for (String name : cacheNames) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private static <T> List<Long> ids(List<T> chunk, Function<T, Long> idOf) {
+        return chunk.stream().map(idOf).toList();
+    }
+}
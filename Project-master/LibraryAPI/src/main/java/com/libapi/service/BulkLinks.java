@@ -0,0 +1,44 @@
+package com.libapi.service;
+
+import com.libapi.dto.LinkResult;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Request validation and chunking shared by the bulk link and unlink operations.
+ */
+final class BulkLinks {
+
+    private BulkLinks() {
+    }
+
+    /**
+     * The distinct, non-null book ids of a request, in request order.
+     *
+     * @throws ResponseStatusException 400 if there are more than {@link LinkResult#MAX_IDS}.
+     */
+    static List<Long> distinct(List<Long> bookIds) {
+        LinkedHashSet<Long> unique = new LinkedHashSet<>(bookIds);
+        unique.remove(null);
+        if (unique.size() > LinkResult.MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + LinkResult.MAX_IDS + " books can be linked at once");
+        }
+        return new ArrayList<>(unique);
+    }
+
+    /**
+     * Split ids into chunks of {@link BatchLoader#CHUNK_SIZE}, one statement each.
+     */
+    static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BatchLoader.CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + BatchLoader.CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+}
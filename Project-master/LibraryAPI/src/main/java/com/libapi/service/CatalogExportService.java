@@ -0,0 +1,83 @@
+package com.libapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.libapi.dto.BookExportRow;
+import com.libapi.entity.BookEntity;
+import com.libapi.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Service class for exporting the whole catalog as newline-delimited JSON.
+ */
+@Service
+public class CatalogExportService {
+
+    /**
+     * Number of books whose authors are read in one query, and written between
+     * flushes of the output and the persistence context.
+     */
+    public static final int CLEAR_INTERVAL = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final BookRepository bookRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CatalogExportService(BookRepository bookRepository, ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write every book, one JSON object per line, while reading them from a database cursor.
+     * Heap use stays flat because written books are regularly evicted from the session.
+     * The author ids of each chunk of books are read with one query, instead of
+     * initializing the authors of every book.
+     *
+     * @param out The stream to write to; it is closed when the export completes.
+     */
+    @Transactional(readOnly = true)
+    public void exportBooks(OutputStream out) throws IOException {
+        try (Stream<BookEntity> books = bookRepository.streamAllOrderedById();
+             SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            Iterator<BookEntity> iterator = books.iterator();
+            List<BookEntity> chunk = new ArrayList<>(CLEAR_INTERVAL);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CLEAR_INTERVAL || !iterator.hasNext()) {
+                    writeChunk(writer, chunk);
+                    writer.flush();
+                    entityManager.clear();
+                    chunk.clear();
+                }
+            }
+        }
+    }
+
+    private void writeChunk(SequenceWriter writer, List<BookEntity> chunk) throws IOException {
+        Map<Long, List<Long>> authorIds = new HashMap<>(chunk.size() * 2);
+        List<Long> bookIds = chunk.stream().map(BookEntity::getId).toList();
+        for (Object[] pair : bookRepository.findAuthorIdsByBookIdIn(bookIds)) {
+            authorIds.computeIfAbsent((Long) pair[0], id -> new ArrayList<>()).add((Long) pair[1]);
+        }
+        for (BookEntity book : chunk) {
+            writer.write(BookExportRow.of(book, authorIds.getOrDefault(book.getId(), List.of())));
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.libapi.service;
+
+import com.libapi.dto.ChangeBatch;
+import com.libapi.dto.ChangeEvent;
+import com.libapi.dto.ChangeOperation;
+import com.libapi.repository.ChangeLogRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records catalog changes in the change log and delivers them to clients.
+ * <p>
+ * The services record a change in the same transaction as the change itself,
+ * so the log never shows a change that was rolled back. Clients read the log
+ * from a sequence number, either page by page or as a Server-Sent Events
+ * stream.
+ * <p>
+ * Stream subscribers are woken after every commit that recorded changes, and
+ * on every poll interval for changes made by other instances. Each subscriber
+ * is served by at most one task at a time, which reads the log from the
+ * subscriber's own position and sends up to one batch per event; a slow
+ * subscriber blocks only its own task and holds no buffered changes, it just
+ * falls further behind in the log. A subscriber that falls behind the
+ * retention window is sent a {@code reset} event and disconnected, and must
+ * reload what it needs before subscribing again.
+ * <p>
+ * Sequence numbers are assigned when a change is written, not when it
+ * commits, so a gap can be a transaction still in flight. Changes past a gap
+ * are held back until the gap fills or is older than the gap timeout, which
+ * must exceed the longest write transaction.
+ * <p>
+ * Since every catalog write is recorded here, recording also ends the
+ * sharing of reads in flight in {@link ReadCoalescer} once the write commits.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    private static final Object NOTIFY_KEY = new Object();
+
+    /**
+     * Changes deleted per statement by the retention job.
+     */
+    private static final int TRIM_CHUNK = 10_000;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ReadCoalescer readCoalescer;
+    private final Duration gapTimeout;
+    private final Duration streamTimeout;
+    private final Duration keepAlive;
+    private final Duration retention;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public ChangeFeedService(
+            ChangeLogRepository changeLogRepository,
+            ReadCoalescer readCoalescer,
+            @Value("${libapi.changes.gap-timeout:5s}") Duration gapTimeout,
+            @Value("${libapi.changes.stream-timeout:30m}") Duration streamTimeout,
+            @Value("${libapi.changes.keep-alive:15s}") Duration keepAlive,
+            @Value("${libapi.changes.retention:7d}") Duration retention) {
+        this.changeLogRepository = changeLogRepository;
+        this.readCoalescer = readCoalescer;
+        this.gapTimeout = gapTimeout;
+        this.streamTimeout = streamTimeout;
+        this.keepAlive = keepAlive;
+        this.retention = retention;
+    }
+
+    /**
+     * Record a change of a resource.
+     *
+     * @param resource  The resource collection, one of the {@link ChangeEvent} constants.
+     * @param id        The unique identifier of the changed resource.
+     * @param operation What happened.
+     */
+    public void record(String resource, long id, ChangeOperation operation) {
+        record(resource, id, operation, null);
+    }
+
+    /**
+     * Record a change of a resource that involves a book.
+     *
+     * @param resource  The resource collection, one of the {@link ChangeEvent} constants.
+     * @param id        The unique identifier of the changed resource.
+     * @param operation What happened.
+     * @param bookId    The unique identifier of the book linked or unlinked.
+     */
+    public void record(String resource, long id, ChangeOperation operation, Long bookId) {
+        changeLogRepository.append(resource, id, operation, bookId);
+        notifyAfterCommit();
+        readCoalescer.invalidateAfterCommit();
+    }
+
+    /**
+     * Record that many books were linked to or unlinked from a resource.
+     *
+     * @param resource  The resource collection, one of the {@link ChangeEvent} constants.
+     * @param id        The unique identifier of the changed resource.
+     * @param operation {@link ChangeOperation#LINKED} or {@link ChangeOperation#UNLINKED}.
+     * @param bookIds   The unique identifiers of the books.
+     */
+    public void recordAll(String resource, long id, ChangeOperation operation, Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        changeLogRepository.appendAll(resource, id, operation, bookIds);
+        notifyAfterCommit();
+        readCoalescer.invalidateAfterCommit();
+    }
+
+    /**
+     * Record the same change of many resources, such as a bulk import.
+     *
+     * @param resource  The resource collection, one of the {@link ChangeEvent} constants.
+     * @param ids       The unique identifiers of the changed resources.
+     * @param operation What happened.
+     */
+    public void recordEach(String resource, Collection<Long> ids, ChangeOperation operation) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        changeLogRepository.appendEach(resource, ids, operation);
+        notifyAfterCommit();
+        readCoalescer.invalidateAfterCommit();
+    }
+
+    /**
+     * Record that every book of some libraries is about to move to another library,
+     * without reading the books. Must be called before the books are moved.
+     *
+     * @param libraryId      The unique identifier of the library receiving the books.
+     * @param fromLibraryIds The unique identifiers of the libraries the books leave.
+     */
+    public void recordLibraryMoves(long libraryId, Collection<Long> fromLibraryIds) {
+        if (changeLogRepository.appendLibraryMoves(libraryId, fromLibraryIds) == 0) {
+            return;
+        }
+        notifyAfterCommit();
+        readCoalescer.invalidateAfterCommit();
+    }
+
+    /**
+     * Read the changes following a sequence number.
+     *
+     * @param after The last sequence the client has seen, or null to get the current one without changes.
+     * @param limit The requested number of changes, capped at {@link ChangeBatch#MAX_LIMIT}.
+     * @return The changes, and the sequence to resume from.
+     * @throws ResponseStatusException 410 if changes after {@code after} were already deleted.
+     */
+    public ChangeBatch getChanges(Long after, Integer limit) {
+        if (after == null) {
+            return new ChangeBatch(List.of(), changeLogRepository.findHead());
+        }
+        int size = limit == null || limit <= 0 ? ChangeBatch.MAX_LIMIT : Math.min(limit, ChangeBatch.MAX_LIMIT);
+        ChangeBatch batch = read(after, size);
+        if (batch == null) {
+            throw new ResponseStatusException(HttpStatus.GONE,
+                    "Changes after " + after + " are past the retention window");
+        }
+        return batch;
+    }
+
+    /**
+     * Open a stream of the changes following a sequence number. Each event is
+     * named {@code changes}, carries a {@link ChangeBatch} and has its last
+     * sequence as event id, so a reconnecting client resumes with Last-Event-ID.
+     *
+     * @param after The last sequence the client has seen, or null to stream only new changes.
+     * @return The stream.
+     */
+    public SseEmitter subscribe(Long after) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, after == null ? changeLogRepository.findHead() : after);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(error -> close(subscriber));
+        subscribers.add(subscriber);
+        signal(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Wake the subscribers that are behind the log or due a keep-alive.
+     */
+    @Scheduled(fixedDelayString = "${libapi.changes.poll-interval:PT1S}")
+    public void poll() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        long head = changeLogRepository.findHead();
+        long keepAliveBefore = System.nanoTime() - keepAlive.toNanos();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.cursor < head || subscriber.lastSent - keepAliveBefore < 0) {
+                signal(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Delete the changes older than the retention window, always keeping the latest one
+     * so that clients can still tell whether they missed anything.
+     */
+    @Scheduled(fixedDelayString = "${libapi.changes.retention-check-interval:PT10M}")
+    public void trim() {
+        Long last = changeLogRepository.findLastBefore(Instant.now().minus(retention));
+        Long oldest = changeLogRepository.findOldest();
+        if (last == null || oldest == null) {
+            return;
+        }
+        long through = Math.min(last, changeLogRepository.findHead() - 1);
+        int deleted = 0;
+        for (long upTo = oldest + TRIM_CHUNK - 1; oldest <= through; upTo += TRIM_CHUNK) {
+            deleted += changeLogRepository.deleteThrough(Math.min(upTo, through));
+            if (upTo >= through) {
+                break;
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} changes older than {}", deleted, retention);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        senders.shutdownNow();
+    }
+
+    /**
+     * Read a batch of consecutive changes, stopping at a gap that may still fill.
+     *
+     * @return The batch, or null if changes after {@code after} were already deleted.
+     */
+    private ChangeBatch read(long after, int limit) {
+        List<ChangeEvent> changes = changeLogRepository.findAfter(after, limit);
+        if (!changes.isEmpty() && changes.get(0).getSequence() != after + 1) {
+            Long oldest = changeLogRepository.findOldest();
+            if (oldest != null && after < oldest - 1) {
+                return null;
+            }
+        }
+        Instant settled = Instant.now().minus(gapTimeout);
+        long expected = after + 1;
+        int end = 0;
+        for (ChangeEvent change : changes) {
+            if (change.getSequence() != expected && change.getChangedAt().isAfter(settled)) {
+                break;
+            }
+            expected = change.getSequence() + 1;
+            end++;
+        }
+        List<ChangeEvent> delivered = changes.subList(0, end);
+        return new ChangeBatch(delivered, end == 0 ? after : delivered.get(end - 1).getSequence());
+    }
+
+    private void notifyAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            signalAll();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(NOTIFY_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(NOTIFY_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                signalAll();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(NOTIFY_KEY);
+            }
+        });
+    }
+
+    private void signalAll() {
+        for (Subscriber subscriber : subscribers) {
+            signal(subscriber);
+        }
+    }
+
+    private void signal(Subscriber subscriber) {
+        subscriber.pending = true;
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * Send everything the subscriber has not seen yet, one batch per event.
+     * Signals that arrive meanwhile are picked up before the task ends.
+     */
+    private void drain(Subscriber subscriber) {
+        do {
+            try {
+                subscriber.pending = false;
+                send(subscriber);
+            } catch (IOException | RuntimeException e) {
+                // The client went away; the emitter callbacks remove it
+                subscriber.emitter.completeWithError(e);
+                close(subscriber);
+            } finally {
+                subscriber.sending.set(false);
+            }
+        } while (subscriber.pending && !subscriber.closed && subscriber.sending.compareAndSet(false, true));
+    }
+
+    private void send(Subscriber subscriber) throws IOException {
+        boolean sent = false;
+        while (!subscriber.closed) {
+            ChangeBatch batch = read(subscriber.cursor, ChangeBatch.MAX_LIMIT);
+            if (batch == null) {
+                subscriber.emitter.send(SseEmitter.event().name("reset")
+                        .data("Changes after " + subscriber.cursor + " are past the retention window"));
+                subscriber.emitter.complete();
+                close(subscriber);
+                return;
+            }
+            if (batch.getChanges().isEmpty()) {
+                break;
+            }
+            subscriber.emitter.send(SseEmitter.event()
+                    .id(Long.toString(batch.getLastSequence()))
+                    .name("changes")
+                    .data(batch, MediaType.APPLICATION_JSON));
+            subscriber.cursor = batch.getLastSequence();
+            sent = true;
+            if (batch.getChanges().size() < ChangeBatch.MAX_LIMIT) {
+                break;
+            }
+        }
+        if (!sent && !subscriber.closed && System.nanoTime() - subscriber.lastSent >= keepAlive.toNanos()) {
+            subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+            sent = true;
+        }
+        if (sent) {
+            subscriber.lastSent = System.nanoTime();
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean pending;
+        private volatile boolean closed;
+        private volatile long cursor;
+        private volatile long lastSent = System.nanoTime();
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
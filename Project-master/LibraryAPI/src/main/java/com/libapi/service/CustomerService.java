@@ -1,37 +1,92 @@
 package com.libapi.service;
 
-import com.libapi.entity.BookEntity;
+import com.libapi.config.CacheConfig;
+import com.libapi.datasource.PrimaryReads;
+import com.libapi.dto.BatchResult;
+import com.libapi.dto.ChangeEvent;
+import com.libapi.dto.ChangeOperation;
+import com.libapi.dto.CursorPage;
+import com.libapi.dto.DeleteResult;
+import com.libapi.dto.LinkResult;
+import com.libapi.dto.LinkStatus;
 import com.libapi.entity.CustomerEntity;
-import com.libapi.repository.CustomerRepository;
+import com.libapi.repository.BookAssignmentRepository;
 import com.libapi.repository.BookRepository;
+import com.libapi.repository.CascadeDeleteRepository;
+import com.libapi.repository.CustomerRepository;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 /**
  * Service class for managing customer-related operations.
  */
 @Service
+@Timed("libapi.service")
 public class CustomerService {
 
     private final CustomerRepository customerRepository;
     private final BookRepository bookRepository;
+    private final BookAssignmentRepository bookAssignmentRepository;
+    private final CascadeDeleteRepository cascadeDeleteRepository;
+    private final ChangeFeedService changeFeedService;
+    private final ReadCoalescer readCoalescer;
+    private final TransactionTemplate readOnlyTransaction;
 
     @Autowired
-    public CustomerService(CustomerRepository customerRepository, BookRepository bookRepository) {
+    public CustomerService(
+            CustomerRepository customerRepository,
+            BookRepository bookRepository,
+            BookAssignmentRepository bookAssignmentRepository,
+            CascadeDeleteRepository cascadeDeleteRepository,
+            ChangeFeedService changeFeedService,
+            ReadCoalescer readCoalescer,
+            PlatformTransactionManager transactionManager) {
         this.customerRepository = customerRepository;
         this.bookRepository = bookRepository;
+        this.bookAssignmentRepository = bookAssignmentRepository;
+        this.cascadeDeleteRepository = cascadeDeleteRepository;
+        this.changeFeedService = changeFeedService;
+        this.readCoalescer = readCoalescer;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     /**
-     * Retrieve a list of all customers.
+     * Retrieve a page of customers ordered by id.
      *
-     * @return List of CustomerEntity objects.
+     * @param after The id of the last customer of the previous page, or null for the first page.
+     * @param limit The requested page size, capped at {@link CursorPage#MAX_LIMIT}.
+     * @return A page of CustomerEntity objects with the cursor of the next page.
      */
-    public List<CustomerEntity> getAllCustomers() {
-        return customerRepository.findAll();
+    public CursorPage<CustomerEntity> getAllCustomers(Long after, Integer limit) {
+        int size = CursorPage.clampLimit(limit);
+        long from = after == null ? 0L : after;
+        return readCoalescer.load(CacheConfig.CUSTOMERS, List.of(from, size), () -> readOnlyTransaction.execute(status -> {
+            List<CustomerEntity> rows = customerRepository.findByIdGreaterThanOrderByIdAsc(from, PageRequest.ofSize(size + 1));
+            CursorPage<CustomerEntity> page = CursorPage.of(rows, size, CustomerEntity::getId);
+            // Shared with concurrent identical requests, which render it outside this session
+            page.getItems().forEach(customer -> customer.getBooks().forEach(book -> Hibernate.initialize(book.getAuthors())));
+            return page;
+        }));
     }
 
     /**
@@ -40,9 +95,29 @@ public class CustomerService {
      * @param id The unique identifier of the customer.
      * @return CustomerEntity object or null if not found.
      */
+    @Cacheable(cacheNames = CacheConfig.CUSTOMERS, key = "#id", unless = "#result == null")
     public CustomerEntity getCustomerById(Long id) {
-        Optional<CustomerEntity> customer = customerRepository.findById(id);
-        return customer.orElse(null);
+        return PrimaryReads.call(() -> readCoalescer.load(CacheConfig.CUSTOMERS, id, () -> readOnlyTransaction.execute(status -> {
+            Optional<CustomerEntity> customer = customerRepository.findById(id);
+            // Cached and shared instances outlive the session, so load everything the response renders
+            customer.ifPresent(c -> c.getBooks().forEach(book -> Hibernate.initialize(book.getAuthors())));
+            return customer.orElse(null);
+        })));
+    }
+
+    /**
+     * Retrieve many customers by their unique identifiers, in chunked IN queries.
+     *
+     * @param ids The unique identifiers, at most {@link BatchResult#MAX_IDS}.
+     * @return The customers found, in the requested order, and the ids that were not found.
+     */
+    @Transactional(readOnly = true)
+    public BatchResult<CustomerEntity> getCustomersByIds(List<Long> ids) {
+        return BatchLoader.load(ids, chunk -> {
+            List<CustomerEntity> customers = customerRepository.findByIdIn(chunk);
+            customers.forEach(customer -> customer.getBooks().forEach(book -> Hibernate.initialize(book.getAuthors())));
+            return customers;
+        }, CustomerEntity::getId);
     }
 
     /**
@@ -51,8 +126,12 @@ public class CustomerService {
      * @param customerEntity The customer entity to be created.
      * @return Created CustomerEntity object.
      */
+    @Transactional
     public CustomerEntity createCustomer(CustomerEntity customerEntity) {
-        return customerRepository.save(customerEntity);
+        customerEntity.setId(null);
+        CustomerEntity customer = customerRepository.save(customerEntity);
+        changeFeedService.record(ChangeEvent.CUSTOMERS, customer.getId(), ChangeOperation.CREATED);
+        return customer;
     }
 
     /**
@@ -60,24 +139,94 @@ public class CustomerService {
      *
      * @param id             The unique identifier of the customer to be updated.
      * @param customerEntity The updated customer entity.
+     * @param ifMatch Whether the customer as stored matches the client's If-Match header, or null to skip the check.
      * @return Updated CustomerEntity object or null if not found.
+     * @throws org.springframework.web.server.ResponseStatusException 412 if the customer does not match.
      */
-    public CustomerEntity updateCustomer(Long id, CustomerEntity customerEntity) {
-        if (customerRepository.existsById(id)) {
-            customerEntity.setId(id);
-            return customerRepository.save(customerEntity);
-        } else {
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CUSTOMERS, key = "#id")
+    public CustomerEntity updateCustomer(Long id, CustomerEntity customerEntity, Predicate<? super CustomerEntity> ifMatch) {
+        CustomerEntity customer = Preconditions.checkMatch(ifMatch, customerRepository.findById(id).orElse(null));
+        if (customer == null) {
             return null; // Handle not found error
         }
+        customer.setName(customerEntity.getName());
+        customer = customerRepository.saveAndFlush(customer);
+        changeFeedService.record(ChangeEvent.CUSTOMERS, id, ChangeOperation.UPDATED);
+        return customer;
+    }
+
+    /**
+     * Apply a JSON merge patch to a customer with one UPDATE of the name. Unlike
+     * {@link #updateCustomer} the customer is only loaded to check an If-Match condition, and its
+     * associations are never written.
+     *
+     * @param id              The unique identifier of the customer to be patched.
+     * @param patch           The patch; only {@code name} may be set.
+     * @param ifMatch Whether the customer as stored matches the client's If-Match header, or null to skip the check.
+     * @return true if the customer exists, false if not found.
+     * @throws org.springframework.web.server.ResponseStatusException 400 if the patch sets another field,
+     *                                                                412 if the customer does not match.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CUSTOMERS, key = "#id")
+    public boolean patchCustomer(Long id, Map<String, Object> patch, Predicate<? super CustomerEntity> ifMatch) {
+        Long expectedVersion = ifMatch == null
+                ? null
+                : Preconditions.checkMatch(ifMatch, customerRepository.findById(id).orElse(null)).getVersion();
+        if (!MergePatches.changes(patch, "name")) {
+            return customerRepository.existsById(id);
+        }
+        String name = (String) patch.get("name");
+        if (customerRepository.updateName(id, name, expectedVersion, Instant.now()) == 0) {
+            return MergePatches.notUpdated(expectedVersion, customerRepository.existsById(id));
+        }
+        changeFeedService.record(ChangeEvent.CUSTOMERS, id, ChangeOperation.UPDATED);
+        return true;
     }
 
     /**
-     * Delete a customer by their unique identifier.
+     * Delete a customer by their unique identifier. The books lent to them are
+     * marked returned with one UPDATE and without being loaded.
      *
      * @param id The unique identifier of the customer to be deleted.
+     * @param ifMatch Whether the customer as stored matches the client's If-Match header, or null to skip the check.
+     * @throws org.springframework.web.server.ResponseStatusException 412 if the customer does not match.
      */
-    public void deleteCustomer(Long id) {
-        customerRepository.deleteById(id);
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CUSTOMERS, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.LIBRARIES}, allEntries = true)
+    })
+    public void deleteCustomer(Long id, Predicate<? super CustomerEntity> ifMatch) {
+        boolean exists = cascadeDeleteRepository.lockCustomers(List.of(id)).containsKey(id);
+        if (ifMatch != null) {
+            // Read after the lock, so the entity cannot change before it is deleted
+            Preconditions.checkMatch(ifMatch, exists ? customerRepository.findById(id).orElse(null) : null);
+        }
+        if (!exists) {
+            return;
+        }
+        removeCustomers(List.of(id));
+    }
+
+    /**
+     * Delete many customers in one transaction, with a few statements per chunk of
+     * {@link BatchLoader#CHUNK_SIZE} customers however many books they have borrowed.
+     *
+     * @param ids The unique identifiers of the customers, at most {@link DeleteResult#MAX_IDS}.
+     * @return Which customers were deleted and which did not exist.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS, CacheConfig.BOOKS, CacheConfig.LIBRARIES}, allEntries = true)
+    public DeleteResult deleteCustomers(List<Long> ids) {
+        return BulkDeletes.delete(BulkDeletes.distinct(ids), cascadeDeleteRepository::lockCustomers, this::removeCustomers);
+    }
+
+    private void removeCustomers(List<Long> ids) {
+        cascadeDeleteRepository.returnCustomerBooks(ids);
+        cascadeDeleteRepository.deleteCustomers(ids);
+        changeFeedService.recordEach(ChangeEvent.CUSTOMERS, ids, ChangeOperation.DELETED);
     }
 
     /**
@@ -86,20 +235,148 @@ public class CustomerService {
      * @param customerId The unique identifier of the customer.
      * @param bookId     The unique identifier of the book to be added.
      * @return Updated CustomerEntity object or null if not found.
+     * @throws ResponseStatusException 409 if the book is lent to another customer.
      */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CUSTOMERS, key = "#customerId"),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId"),
+            @CacheEvict(cacheNames = CacheConfig.LIBRARIES, allEntries = true)
+    })
     public CustomerEntity addBookToCustomer(Long customerId, Long bookId) {
-        CustomerEntity customer = customerRepository.findById(customerId).orElse(null);
-        BookEntity book = bookRepository.findById(bookId).orElse(null);
+        if (!checkOutBook(customerId, bookId)) {
+            return null; // Handle not found error
+        }
+        return customerRepository.findById(customerId).orElse(null);
+    }
 
-        if (customer != null && book != null) {
-            customer.getBooks().add(book);
-            book.setCustomer(customer);
-            customerRepository.save(customer);
-            bookRepository.save(book);
+    /**
+     * Lend a book to a customer with a single conditional update.
+     * Concurrent checkouts of the same book cannot both succeed.
+     *
+     * @param customerId The unique identifier of the customer.
+     * @param bookId     The unique identifier of the book.
+     * @return true if the book is lent to the customer, false if either does not exist.
+     * @throws ResponseStatusException 409 if the book is lent to another customer.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CUSTOMERS, key = "#customerId"),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId"),
+            @CacheEvict(cacheNames = CacheConfig.LIBRARIES, allEntries = true)
+    })
+    public boolean checkOutBook(Long customerId, Long bookId) {
+        if (bookRepository.checkOut(bookId, customerId) == 1) {
+            changeFeedService.record(ChangeEvent.CUSTOMERS, customerId, ChangeOperation.LINKED, bookId);
+            return true;
+        }
+        if (!customerRepository.existsById(customerId) || !bookRepository.existsById(bookId)) {
+            return false;
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "Book " + bookId + " is already checked out");
+    }
 
-            return customer;
-        } else {
-            return null; // Handle not found error
+    /**
+     * Take a book back from a customer with a single conditional update.
+     *
+     * @param customerId The unique identifier of the customer.
+     * @param bookId     The unique identifier of the book.
+     * @return true if the book was returned, false if either does not exist.
+     * @throws ResponseStatusException 409 if the book is not lent to this customer.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CUSTOMERS, key = "#customerId"),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId"),
+            @CacheEvict(cacheNames = CacheConfig.LIBRARIES, allEntries = true)
+    })
+    public boolean returnBook(Long customerId, Long bookId) {
+        if (bookRepository.checkIn(bookId, customerId) == 1) {
+            changeFeedService.record(ChangeEvent.CUSTOMERS, customerId, ChangeOperation.UNLINKED, bookId);
+            return true;
+        }
+        if (!customerRepository.existsById(customerId) || !bookRepository.existsById(bookId)) {
+            return false;
+        }
+        throw new ResponseStatusException(
+                HttpStatus.CONFLICT, "Book " + bookId + " is not checked out by customer " + customerId);
+    }
+
+    /**
+     * Lend many books to a customer, with one UPDATE per chunk.
+     * Books lent to another customer are reported as conflicts and left unchanged.
+     *
+     * @param customerId The unique identifier of the customer.
+     * @param bookIds    The unique identifiers of the books, at most {@link LinkResult#MAX_IDS}.
+     * @return The outcome for every book, or null if the customer does not exist.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CUSTOMERS, key = "#customerId"),
+            @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.LIBRARIES}, allEntries = true)
+    })
+    public LinkResult checkOutBooks(Long customerId, List<Long> bookIds) {
+        List<Long> ids = BulkLinks.distinct(bookIds);
+        if (!customerRepository.existsById(customerId)) {
+            return null;
+        }
+        Map<Long, LinkStatus> results = new LinkedHashMap<>();
+        for (List<Long> chunk : BulkLinks.chunks(ids)) {
+            Map<Long, Long> lentTo = bookAssignmentRepository.lockCustomers(chunk);
+            List<Long> toLend = new ArrayList<>();
+            for (Long bookId : chunk) {
+                if (!lentTo.containsKey(bookId)) {
+                    results.put(bookId, LinkStatus.NOT_FOUND);
+                } else if (lentTo.get(bookId) == null) {
+                    results.put(bookId, LinkStatus.LINKED);
+                    toLend.add(bookId);
+                } else if (customerId.equals(lentTo.get(bookId))) {
+                    results.put(bookId, LinkStatus.UNCHANGED);
+                } else {
+                    results.put(bookId, LinkStatus.CONFLICT);
+                }
+            }
+            bookAssignmentRepository.setCustomer(customerId, toLend);
+            changeFeedService.recordAll(ChangeEvent.CUSTOMERS, customerId, ChangeOperation.LINKED, toLend);
+        }
+        return new LinkResult(results);
+    }
+
+    /**
+     * Give many books back, with one UPDATE per chunk.
+     * Books not lent to this customer are reported as conflicts and left unchanged.
+     *
+     * @param customerId The unique identifier of the customer.
+     * @param bookIds    The unique identifiers of the books, at most {@link LinkResult#MAX_IDS}.
+     * @return The outcome for every book, or null if the customer does not exist.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CUSTOMERS, key = "#customerId"),
+            @CacheEvict(cacheNames = {CacheConfig.BOOKS, CacheConfig.LIBRARIES}, allEntries = true)
+    })
+    public LinkResult returnBooks(Long customerId, List<Long> bookIds) {
+        List<Long> ids = BulkLinks.distinct(bookIds);
+        if (!customerRepository.existsById(customerId)) {
+            return null;
+        }
+        Map<Long, LinkStatus> results = new LinkedHashMap<>();
+        for (List<Long> chunk : BulkLinks.chunks(ids)) {
+            Map<Long, Long> lentTo = bookAssignmentRepository.lockCustomers(chunk);
+            List<Long> toReturn = new ArrayList<>();
+            for (Long bookId : chunk) {
+                if (!lentTo.containsKey(bookId)) {
+                    results.put(bookId, LinkStatus.NOT_FOUND);
+                } else if (customerId.equals(lentTo.get(bookId))) {
+                    results.put(bookId, LinkStatus.UNLINKED);
+                    toReturn.add(bookId);
+                } else {
+                    results.put(bookId, LinkStatus.CONFLICT);
+                }
+            }
+            bookAssignmentRepository.setCustomer(null, toReturn);
+            changeFeedService.recordAll(ChangeEvent.CUSTOMERS, customerId, ChangeOperation.UNLINKED, toReturn);
         }
+        return new LinkResult(results);
     }
 }
@@ -1,39 +1,97 @@
 package com.libapi.service;
 
+import com.libapi.config.CacheConfig;
+import com.libapi.datasource.PrimaryReads;
+import com.libapi.dto.BatchResult;
+import com.libapi.dto.ChangeEvent;
+import com.libapi.dto.ChangeOperation;
+import com.libapi.dto.CursorPage;
+import com.libapi.dto.DeleteResult;
+import com.libapi.dto.LinkResult;
+import com.libapi.dto.LinkStatus;
 import com.libapi.entity.BookEntity;
 import com.libapi.entity.LibraryEntity;
+import com.libapi.repository.BookAssignmentRepository;
 import com.libapi.repository.BookRepository;
+import com.libapi.repository.CascadeDeleteRepository;
 import com.libapi.repository.LibraryRepository;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 /**
  * Service class for managing library-related operations.
  */
 @Service
+@Timed("libapi.service")
 public class LibraryService {
     private final LibraryRepository libraryRepository;
 
     private final BookRepository bookRepository;
 
+    private final BookAssignmentRepository bookAssignmentRepository;
+
+    private final CascadeDeleteRepository cascadeDeleteRepository;
+
+    private final ChangeFeedService changeFeedService;
+    private final ReadCoalescer readCoalescer;
+    private final TransactionTemplate readOnlyTransaction;
+
     @Autowired
     public LibraryService(
             LibraryRepository libraryRepository,
-            BookRepository bookRepository) {
+            BookRepository bookRepository,
+            BookAssignmentRepository bookAssignmentRepository,
+            CascadeDeleteRepository cascadeDeleteRepository,
+            ChangeFeedService changeFeedService,
+            ReadCoalescer readCoalescer,
+            PlatformTransactionManager transactionManager) {
         this.libraryRepository = libraryRepository;
         this.bookRepository = bookRepository;
+        this.bookAssignmentRepository = bookAssignmentRepository;
+        this.cascadeDeleteRepository = cascadeDeleteRepository;
+        this.changeFeedService = changeFeedService;
+        this.readCoalescer = readCoalescer;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     /**
-     * Retrieve a list of all libraries.
+     * Retrieve a page of libraries ordered by id.
      *
-     * @return List of LibraryEntity objects.
+     * @param after The id of the last library of the previous page, or null for the first page.
+     * @param limit The requested page size, capped at {@link CursorPage#MAX_LIMIT}.
+     * @return A page of LibraryEntity objects with the cursor of the next page.
      */
-    public List<LibraryEntity> getAllLibraries() {
-        return libraryRepository.findAll();
+    public CursorPage<LibraryEntity> getAllLibraries(Long after, Integer limit) {
+        int size = CursorPage.clampLimit(limit);
+        long from = after == null ? 0L : after;
+        return readCoalescer.load(CacheConfig.LIBRARIES, List.of(from, size), () -> readOnlyTransaction.execute(status -> {
+            List<LibraryEntity> rows = libraryRepository.findByIdGreaterThanOrderByIdAsc(from, PageRequest.ofSize(size + 1));
+            CursorPage<LibraryEntity> page = CursorPage.of(rows, size, LibraryEntity::getId);
+            // Shared with concurrent identical requests, which render it outside this session
+            page.getItems().forEach(library -> library.getBooks().forEach(book -> Hibernate.initialize(book.getAuthors())));
+            return page;
+        }));
     }
 
     /**
@@ -42,9 +100,29 @@ public class LibraryService {
      * @param id The unique identifier of the library.
      * @return LibraryEntity object or null if not found.
      */
+    @Cacheable(cacheNames = CacheConfig.LIBRARIES, key = "#id", unless = "#result == null")
     public LibraryEntity getLibraryById(Long id) {
-        Optional<LibraryEntity> library = libraryRepository.findById(id);
-        return library.orElse(null);
+        return PrimaryReads.call(() -> readCoalescer.load(CacheConfig.LIBRARIES, id, () -> readOnlyTransaction.execute(status -> {
+            Optional<LibraryEntity> library = libraryRepository.findById(id);
+            // Cached and shared instances outlive the session, so load everything the response renders
+            library.ifPresent(l -> l.getBooks().forEach(book -> Hibernate.initialize(book.getAuthors())));
+            return library.orElse(null);
+        })));
+    }
+
+    /**
+     * Retrieve many libraries by their unique identifiers, in chunked IN queries.
+     *
+     * @param ids The unique identifiers, at most {@link BatchResult#MAX_IDS}.
+     * @return The libraries found, in the requested order, and the ids that were not found.
+     */
+    @Transactional(readOnly = true)
+    public BatchResult<LibraryEntity> getLibrariesByIds(List<Long> ids) {
+        return BatchLoader.load(ids, chunk -> {
+            List<LibraryEntity> libraries = libraryRepository.findByIdIn(chunk);
+            libraries.forEach(library -> library.getBooks().forEach(book -> Hibernate.initialize(book.getAuthors())));
+            return libraries;
+        }, LibraryEntity::getId);
     }
 
     /**
@@ -53,8 +131,12 @@ public class LibraryService {
      * @param libraryEntity The library entity to be created.
      * @return Created LibraryEntity object.
      */
+    @Transactional
     public LibraryEntity createLibrary(LibraryEntity libraryEntity) {
-        return libraryRepository.save(libraryEntity);
+        libraryEntity.setId(null);
+        LibraryEntity library = libraryRepository.save(libraryEntity);
+        changeFeedService.record(ChangeEvent.LIBRARIES, library.getId(), ChangeOperation.CREATED);
+        return library;
     }
 
     /**
@@ -62,24 +144,118 @@ public class LibraryService {
      *
      * @param id              The unique identifier of the library to be updated.
      * @param libraryEntity The updated library entity.
+     * @param ifMatch Whether the library as stored matches the client's If-Match header, or null to skip the check.
      * @return Updated LibraryEntity object or null if not found.
+     * @throws org.springframework.web.server.ResponseStatusException 412 if the library does not match.
      */
-    public LibraryEntity updateLibrary(Long id, LibraryEntity libraryEntity) {
-        if (libraryRepository.existsById(id)) {
-            libraryEntity.setId(id);
-            return libraryRepository.save(libraryEntity);
-        } else {
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LIBRARIES, key = "#id")
+    public LibraryEntity updateLibrary(Long id, LibraryEntity libraryEntity, Predicate<? super LibraryEntity> ifMatch) {
+        LibraryEntity library = Preconditions.checkMatch(ifMatch, libraryRepository.findById(id).orElse(null));
+        if (library == null) {
             return null; // Handle not found error
         }
+        library.setName(libraryEntity.getName());
+        library = libraryRepository.saveAndFlush(library);
+        changeFeedService.record(ChangeEvent.LIBRARIES, id, ChangeOperation.UPDATED);
+        return library;
     }
 
     /**
-     * Delete a library by its unique identifier.
+     * Apply a JSON merge patch to a library with one UPDATE of the name. Unlike
+     * {@link #updateLibrary} the library is only loaded to check an If-Match condition, and its
+     * associations are never written.
+     *
+     * @param id              The unique identifier of the library to be patched.
+     * @param patch           The patch; only {@code name} may be set.
+     * @param ifMatch Whether the library as stored matches the client's If-Match header, or null to skip the check.
+     * @return true if the library exists, false if not found.
+     * @throws org.springframework.web.server.ResponseStatusException 400 if the patch sets another field,
+     *                                                                412 if the library does not match.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LIBRARIES, key = "#id")
+    public boolean patchLibrary(Long id, Map<String, Object> patch, Predicate<? super LibraryEntity> ifMatch) {
+        Long expectedVersion = ifMatch == null
+                ? null
+                : Preconditions.checkMatch(ifMatch, libraryRepository.findById(id).orElse(null)).getVersion();
+        if (!MergePatches.changes(patch, "name")) {
+            return libraryRepository.existsById(id);
+        }
+        String name = (String) patch.get("name");
+        if (libraryRepository.updateName(id, name, expectedVersion, Instant.now()) == 0) {
+            return MergePatches.notUpdated(expectedVersion, libraryRepository.existsById(id));
+        }
+        changeFeedService.record(ChangeEvent.LIBRARIES, id, ChangeOperation.UPDATED);
+        return true;
+    }
+
+    /**
+     * Delete a library by its unique identifier. Its books are taken off its shelves,
+     * or moved to another library, with one UPDATE and without being loaded.
      *
      * @param id The unique identifier of the library to be deleted.
+     * @param ifMatch Whether the library as stored matches the client's If-Match header, or null to skip the check.
+     * @param reassignTo The unique identifier of the library receiving the books, or null to leave them unshelved.
+     * @throws org.springframework.web.server.ResponseStatusException 412 if the library does not match,
+     *         400 if the library receiving the books does not exist.
      */
-    public void deleteLibrary(Long id) {
-        libraryRepository.deleteById(id);
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.LIBRARIES, CacheConfig.BOOKS, CacheConfig.CUSTOMERS}, allEntries = true)
+    public void deleteLibrary(Long id, Predicate<? super LibraryEntity> ifMatch, Long reassignTo) {
+        checkReassignTarget(List.of(id), reassignTo);
+        boolean exists = cascadeDeleteRepository.lockLibraries(List.of(id)).containsKey(id);
+        if (ifMatch != null) {
+            // Read after the lock, so the entity cannot change before it is deleted
+            Preconditions.checkMatch(ifMatch, exists ? libraryRepository.findById(id).orElse(null) : null);
+        }
+        if (!exists) {
+            return;
+        }
+        removeLibraries(List.of(id), reassignTo);
+    }
+
+    /**
+     * Delete many libraries in one transaction, with a few statements per chunk of
+     * {@link BatchLoader#CHUNK_SIZE} libraries however many books they hold.
+     *
+     * @param ids The unique identifiers of the libraries, at most {@link DeleteResult#MAX_IDS}.
+     * @param reassignTo The unique identifier of the library receiving the books, or null to leave them unshelved.
+     * @return Which libraries were deleted and which did not exist.
+     * @throws org.springframework.web.server.ResponseStatusException 400 if the library receiving
+     *         the books does not exist or is itself being deleted.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.LIBRARIES, CacheConfig.BOOKS, CacheConfig.CUSTOMERS}, allEntries = true)
+    public DeleteResult deleteLibraries(List<Long> ids, Long reassignTo) {
+        List<Long> unique = BulkDeletes.distinct(ids);
+        checkReassignTarget(unique, reassignTo);
+        return BulkDeletes.delete(unique, cascadeDeleteRepository::lockLibraries,
+                found -> removeLibraries(found, reassignTo));
+    }
+
+    private void checkReassignTarget(List<Long> ids, Long reassignTo) {
+        if (reassignTo == null) {
+            return;
+        }
+        if (ids.contains(reassignTo)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Library " + reassignTo + " cannot receive the books of its own deletion");
+        }
+        // Locked so that it cannot be deleted before the books arrive
+        if (cascadeDeleteRepository.lockLibraries(List.of(reassignTo)).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Library " + reassignTo + " does not exist");
+        }
+    }
+
+    private void removeLibraries(List<Long> ids, Long reassignTo) {
+        if (reassignTo != null) {
+            changeFeedService.recordLibraryMoves(reassignTo, ids);
+        }
+        cascadeDeleteRepository.moveLibraryBooks(ids, reassignTo);
+        cascadeDeleteRepository.deleteLibraries(ids);
+        changeFeedService.recordEach(ChangeEvent.LIBRARIES, ids, ChangeOperation.DELETED);
     }
 
     /**
@@ -89,6 +265,11 @@ public class LibraryService {
      * @param bookId     The unique identifier of the book to be associated with the library.
      * @return Updated LibraryEntity object or null if not found.
      */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.LIBRARIES, CacheConfig.CUSTOMERS}, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId")
+    })
     public LibraryEntity associateBookWithLibrary(
             Long libraryId,
             Long bookId) {
@@ -96,14 +277,104 @@ public class LibraryService {
         BookEntity book = bookRepository.findById(bookId).orElse(null);
 
         if (library != null && book != null) {
+            LibraryEntity previous = book.getLibrary();
             library.getBooks().add(book);
             book.setLibrary(library);
             libraryRepository.save(library);
             bookRepository.save(book);
+            if (previous != null && !previous.getId().equals(libraryId)) {
+                changeFeedService.record(ChangeEvent.LIBRARIES, previous.getId(), ChangeOperation.UNLINKED, bookId);
+            }
+            changeFeedService.record(ChangeEvent.LIBRARIES, libraryId, ChangeOperation.LINKED, bookId);
 
             return library;
         } else {
             return null;
         }
     }
+
+    /**
+     * Shelve many books in a library, moving them from any other library, with one UPDATE per chunk.
+     *
+     * @param libraryId The unique identifier of the library.
+     * @param bookIds   The unique identifiers of the books, at most {@link LinkResult#MAX_IDS}.
+     * @return The outcome for every book, or null if the library does not exist.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.LIBRARIES, CacheConfig.BOOKS, CacheConfig.CUSTOMERS}, allEntries = true)
+    public LinkResult addBooksToLibrary(Long libraryId, List<Long> bookIds) {
+        List<Long> ids = BulkLinks.distinct(bookIds);
+        if (!libraryRepository.existsById(libraryId)) {
+            return null;
+        }
+        Map<Long, LinkStatus> results = new LinkedHashMap<>();
+        for (List<Long> chunk : BulkLinks.chunks(ids)) {
+            Map<Long, Long> shelvedIn = bookAssignmentRepository.lockLibraries(chunk);
+            List<Long> toMove = new ArrayList<>();
+            for (Long bookId : chunk) {
+                if (!shelvedIn.containsKey(bookId)) {
+                    results.put(bookId, LinkStatus.NOT_FOUND);
+                } else if (libraryId.equals(shelvedIn.get(bookId))) {
+                    results.put(bookId, LinkStatus.UNCHANGED);
+                } else {
+                    results.put(bookId, LinkStatus.LINKED);
+                    toMove.add(bookId);
+                }
+            }
+            bookAssignmentRepository.setLibrary(libraryId, toMove);
+            recordMoves(libraryId, toMove, shelvedIn);
+        }
+        return new LinkResult(results);
+    }
+
+    /**
+     * Take many books off a library's shelves, with one UPDATE per chunk.
+     * Books shelved in another library are left where they are.
+     *
+     * @param libraryId The unique identifier of the library.
+     * @param bookIds   The unique identifiers of the books, at most {@link LinkResult#MAX_IDS}.
+     * @return The outcome for every book, or null if the library does not exist.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.LIBRARIES, CacheConfig.BOOKS, CacheConfig.CUSTOMERS}, allEntries = true)
+    public LinkResult removeBooksFromLibrary(Long libraryId, List<Long> bookIds) {
+        List<Long> ids = BulkLinks.distinct(bookIds);
+        if (!libraryRepository.existsById(libraryId)) {
+            return null;
+        }
+        Map<Long, LinkStatus> results = new LinkedHashMap<>();
+        for (List<Long> chunk : BulkLinks.chunks(ids)) {
+            Map<Long, Long> shelvedIn = bookAssignmentRepository.lockLibraries(chunk);
+            List<Long> toRemove = new ArrayList<>();
+            for (Long bookId : chunk) {
+                if (!shelvedIn.containsKey(bookId)) {
+                    results.put(bookId, LinkStatus.NOT_FOUND);
+                } else if (libraryId.equals(shelvedIn.get(bookId))) {
+                    results.put(bookId, LinkStatus.UNLINKED);
+                    toRemove.add(bookId);
+                } else {
+                    results.put(bookId, LinkStatus.UNCHANGED);
+                }
+            }
+            bookAssignmentRepository.setLibrary(null, toRemove);
+            changeFeedService.recordAll(ChangeEvent.LIBRARIES, libraryId, ChangeOperation.UNLINKED, toRemove);
+        }
+        return new LinkResult(results);
+    }
+
+    /**
+     * Record books moved to a library, and taken from the libraries they were in before.
+     */
+    private void recordMoves(Long libraryId, List<Long> moved, Map<Long, Long> previousLibraries) {
+        Map<Long, List<Long>> taken = new HashMap<>();
+        for (Long bookId : moved) {
+            Long previous = previousLibraries.get(bookId);
+            if (previous != null) {
+                taken.computeIfAbsent(previous, key -> new ArrayList<>()).add(bookId);
+            }
+        }
+        taken.forEach((previous, bookIds) ->
+                changeFeedService.recordAll(ChangeEvent.LIBRARIES, previous, ChangeOperation.UNLINKED, bookIds));
+        changeFeedService.recordAll(ChangeEvent.LIBRARIES, libraryId, ChangeOperation.LINKED, moved);
+    }
 }
@@ -0,0 +1,54 @@
+package com.libapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+/**
+ * Validation of the JSON merge patches (RFC 7396) accepted by the PATCH endpoints.
+ * Each resource has one writable text field; ids, versions, timestamps and
+ * associations cannot be patched.
+ */
+final class MergePatches {
+
+    private MergePatches() {
+    }
+
+    /**
+     * Whether a patch sets the writable field, after checking it sets nothing else.
+     *
+     * @param patch The patch; a member set to null clears the field.
+     * @param field The writable field, such as {@code title}.
+     * @return true if the patch changes the field, false if it is empty.
+     * @throws ResponseStatusException 400 if the patch names another field or the value is not text.
+     */
+    static boolean changes(Map<String, Object> patch, String field) {
+        for (Map.Entry<String, Object> member : patch.entrySet()) {
+            if (!member.getKey().equals(field)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Field '" + member.getKey() + "' cannot be patched, only '" + field + "'");
+            }
+            if (member.getValue() != null && !(member.getValue() instanceof String)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field '" + field + "' must be a string");
+            }
+        }
+        return patch.containsKey(field);
+    }
+
+    /**
+     * Explain an UPDATE that matched no row.
+     *
+     * @param expectedVersion The version the UPDATE was conditional on, or null.
+     * @param exists          Whether the row exists.
+     * @return false, meaning not found, if the row does not exist.
+     * @throws ResponseStatusException 412 if the row exists but has another version.
+     */
+    static boolean notUpdated(Long expectedVersion, boolean exists) {
+        if (exists && expectedVersion != null) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "Expected version " + expectedVersion + " but the entity has changed");
+        }
+        return false;
+    }
+}
@@ -0,0 +1,31 @@
+package com.libapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.function.Predicate;
+
+/**
+ * Checks shared by the services' conditional write paths.
+ */
+final class Preconditions {
+
+    private Preconditions() {
+    }
+
+    /**
+     * Reject a write whose If-Match condition does not hold for the entity as
+     * read inside the write's transaction.
+     *
+     * @param ifMatch Whether the stored entity matches the client's If-Match header, or null to skip the check.
+     * @param current The entity as currently stored, or null if it does not exist.
+     * @return The current entity.
+     * @throws ResponseStatusException 412 if there is a condition and the entity does not exist or does not match.
+     */
+    static <T> T checkMatch(Predicate<? super T> ifMatch, T current) {
+        if (ifMatch != null && (current == null || !ifMatch.test(current))) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "The entity has changed");
+        }
+        return current;
+    }
+}
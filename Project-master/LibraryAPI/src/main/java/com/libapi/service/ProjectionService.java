@@ -0,0 +1,144 @@
+package com.libapi.service;
+
+import com.libapi.dto.BatchResult;
+import com.libapi.dto.CursorPage;
+import com.libapi.repository.Projection;
+import com.libapi.repository.ProjectionRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service answering GET requests with a {@code fields=} parameter: only the
+ * requested fields are read from the database and rendered, and an
+ * association is queried only when it is one of them.
+ * <p>
+ * {@code fields} is a comma-separated list of field names of the resource,
+ * see {@link Projection}; {@code id} is always included.
+ */
+@Service
+@Timed("libapi.service")
+public class ProjectionService {
+
+    private final ProjectionRepository projectionRepository;
+
+    @Autowired
+    public ProjectionService(ProjectionRepository projectionRepository) {
+        this.projectionRepository = projectionRepository;
+    }
+
+    /**
+     * Retrieve a page of rows ordered by id.
+     *
+     * @param projection The resource.
+     * @param fields     The requested fields, comma-separated.
+     * @param after      The id of the last row of the previous page, or null for the first page.
+     * @param limit      The requested page size, capped at {@link CursorPage#MAX_LIMIT}.
+     * @return A page of rows with the cursor of the next page.
+     * @throws ResponseStatusException 400 if a field does not exist.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Map<String, Object>> getPage(Projection projection, String fields, Long after, Integer limit) {
+        Set<String> requested = parse(projection, fields);
+        int size = CursorPage.clampLimit(limit);
+        List<Map<String, Object>> rows = projectionRepository.findPage(
+                projection, columns(projection, requested), after == null ? 0L : after, size + 1);
+        CursorPage<Map<String, Object>> page = CursorPage.of(rows, size, ProjectionService::idOf);
+        attachAssociation(projection, requested, page.getItems());
+        return page;
+    }
+
+    /**
+     * Retrieve one row by its unique identifier.
+     *
+     * @param projection The resource.
+     * @param fields     The requested fields, comma-separated.
+     * @param id         The unique identifier.
+     * @return The row, or null if not found.
+     * @throws ResponseStatusException 400 if a field does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getById(Projection projection, String fields, Long id) {
+        Set<String> requested = parse(projection, fields);
+        List<Map<String, Object>> rows = projectionRepository.findByIdIn(
+                projection, columns(projection, requested), List.of(id));
+        if (rows.isEmpty()) {
+            return null;
+        }
+        attachAssociation(projection, requested, rows);
+        return rows.get(0);
+    }
+
+    /**
+     * Retrieve many rows by their unique identifiers, in chunked IN queries.
+     *
+     * @param projection The resource.
+     * @param fields     The requested fields, comma-separated.
+     * @param ids        The unique identifiers, at most {@link BatchResult#MAX_IDS}.
+     * @return The rows found, in the requested order, and the ids that were not found.
+     * @throws ResponseStatusException 400 if a field does not exist.
+     */
+    @Transactional(readOnly = true)
+    public BatchResult<Map<String, Object>> getByIds(Projection projection, String fields, List<Long> ids) {
+        Set<String> requested = parse(projection, fields);
+        List<String> columns = columns(projection, requested);
+        BatchResult<Map<String, Object>> result = BatchLoader.load(ids,
+                chunk -> projectionRepository.findByIdIn(projection, columns, chunk), ProjectionService::idOf);
+        attachAssociation(projection, requested, result.getItems());
+        return result;
+    }
+
+    private static Set<String> parse(Projection projection, String fields) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!projection.isColumn(name) && !name.equals(projection.getAssociationName())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown field '" + name + "', expected some of: " + projection.allowedFields());
+            }
+            requested.add(name);
+        }
+        return requested;
+    }
+
+    private static List<String> columns(Projection projection, Set<String> requested) {
+        List<String> columns = new ArrayList<>(requested.size());
+        for (String field : requested) {
+            if (projection.isColumn(field)) {
+                columns.add(field);
+            }
+        }
+        return columns;
+    }
+
+    private void attachAssociation(Projection projection, Set<String> requested, List<Map<String, Object>> rows) {
+        String association = projection.getAssociationName();
+        if (association == null || !requested.contains(association) || rows.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < rows.size(); from += BatchLoader.CHUNK_SIZE) {
+            List<Map<String, Object>> chunk = rows.subList(from, Math.min(from + BatchLoader.CHUNK_SIZE, rows.size()));
+            List<Long> ownerIds = chunk.stream().map(ProjectionService::idOf).toList();
+            Map<Long, List<Map<String, Object>>> associated = projectionRepository.findAssociated(projection, ownerIds);
+            for (Map<String, Object> row : chunk) {
+                row.put(association, associated.getOrDefault(idOf(row), List.of()));
+            }
+        }
+    }
+
+    private static Long idOf(Map<String, Object> row) {
+        return (Long) row.get("id");
+    }
+}
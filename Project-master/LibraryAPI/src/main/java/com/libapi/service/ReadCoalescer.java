@@ -0,0 +1,148 @@
+package com.libapi.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical reads share one database load: the first caller
+ * for a key runs the load, and callers arriving while it runs wait for its
+ * result instead of running their own.
+ * <p>
+ * A shared result is handed to requests other than the one that loaded it,
+ * so loaders must initialize everything the response renders, as for cached
+ * entities. A committed write ends sharing of the loads already in flight:
+ * {@link #invalidateAfterCommit()} moves later callers to new loads, which see
+ * the write, while callers that joined before the commit still get the old
+ * result. At most {@code libapi.coalescing.max-flights} loads are shared at
+ * once; past that, reads load on their own. {@code libapi.coalescing.enabled=false}
+ * turns sharing off.
+ * <p>
+ * Callers must not be in a transaction when they call {@link #load}, or each
+ * caller waiting for another's load would hold a pooled connection while it
+ * waits. Loaders begin their own read-only transaction instead, so only the
+ * caller running a load takes a connection.
+ * <p>
+ * Publishes {@code libapi.coalescing.reads}, tagged with the resource and with
+ * whether the read {@code loaded}, {@code joined} another load, or {@code bypassed}
+ * sharing because of the bound.
+ */
+@Component
+public class ReadCoalescer {
+
+    private static final Object INVALIDATE_KEY = new Object();
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int maxFlights;
+    private final ConcurrentHashMap<FlightKey, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public ReadCoalescer(MeterRegistry meterRegistry, Environment environment) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = environment.getProperty("libapi.coalescing.enabled", Boolean.class, true);
+        this.maxFlights = environment.getProperty("libapi.coalescing.max-flights", Integer.class, 10_000);
+    }
+
+    /**
+     * Run a load, or wait for the identical one already running.
+     *
+     * @param resource The resource collection, such as {@link com.libapi.config.CacheConfig#BOOKS}.
+     * @param key      What is loaded, such as an id; must implement equals and hashCode.
+     * @param loader   Loads the result, fully initialized.
+     * @return The result, possibly loaded by another request.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(String resource, Object key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        FlightKey flightKey = new FlightKey(resource, key, generation.get());
+        CompletableFuture<Object> flight = flights.get(flightKey);
+        if (flight == null) {
+            if (flights.size() >= maxFlights) {
+                count(resource, "bypassed");
+                return loader.get();
+            }
+            CompletableFuture<Object> own = new CompletableFuture<>();
+            flight = flights.putIfAbsent(flightKey, own);
+            if (flight == null) {
+                count(resource, "loaded");
+                return lead(flightKey, own, loader);
+            }
+        }
+        count(resource, "joined");
+        return (T) await(flight);
+    }
+
+    /**
+     * Stop sharing the loads in flight once the current transaction commits,
+     * or at once outside a transaction.
+     */
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            generation.incrementAndGet();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(INVALIDATE_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(INVALIDATE_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                generation.incrementAndGet();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(INVALIDATE_KEY);
+            }
+        });
+    }
+
+    private <T> T lead(FlightKey flightKey, CompletableFuture<Object> flight, Supplier<T> loader) {
+        try {
+            T result = loader.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(flightKey, flight);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // Waiters see the loader's own exception, such as a 404 or 400
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void count(String resource, String outcome) {
+        meterRegistry.counter("libapi.coalescing.reads", "resource", resource, "outcome", outcome).increment();
+    }
+
+    private record FlightKey(String resource, Object key, long generation) {
+    }
+}
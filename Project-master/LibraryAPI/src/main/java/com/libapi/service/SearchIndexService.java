@@ -0,0 +1,150 @@
+package com.libapi.service;
+
+import com.libapi.dto.CursorPage;
+import com.libapi.dto.SearchResult;
+import com.libapi.entity.AuthorEntity;
+import com.libapi.entity.BookEntity;
+import com.libapi.repository.AuthorRepository;
+import com.libapi.repository.BookRepository;
+import com.libapi.search.TextIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Service class keeping the full-text indexes over book titles and author names.
+ * <p>
+ * The indexes are built from the database at startup and then kept in sync by
+ * the book and author write paths. Changes made inside a transaction reach the
+ * indexes when it commits, so a write that rolls back leaves them untouched.
+ */
+@Service
+public class SearchIndexService {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final TextIndex bookTitles = new TextIndex();
+    private final TextIndex authorNames = new TextIndex();
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+
+    @Autowired
+    public SearchIndexService(BookRepository bookRepository, AuthorRepository authorRepository) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+    }
+
+    /**
+     * Rebuild both indexes from the database, one page of rows at a time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        bookTitles.clear();
+        authorNames.clear();
+        indexAll(bookRepository::findByIdGreaterThanOrderByIdAsc, BookEntity::getId, this::indexBook);
+        indexAll(authorRepository::findByIdGreaterThanOrderByIdAsc, AuthorEntity::getId, this::indexAuthor);
+    }
+
+    /**
+     * Search book titles.
+     *
+     * @param query  Free text; the tokens match title words or word prefixes.
+     * @param offset Number of hits to skip, null for the first page.
+     * @param limit  The requested page size, capped at {@link CursorPage#MAX_LIMIT}.
+     * @return A page of matching books, most relevant first.
+     * @throws ResponseStatusException 400 if the page ends past {@link TextIndex#MAX_WINDOW}.
+     */
+    public SearchResult searchBooks(String query, Integer offset, Integer limit) {
+        return search(bookTitles, query, offset, limit);
+    }
+
+    /**
+     * Search author names.
+     *
+     * @param query  Free text; the tokens match name words or word prefixes.
+     * @param offset Number of hits to skip, null for the first page.
+     * @param limit  The requested page size, capped at {@link CursorPage#MAX_LIMIT}.
+     * @return A page of matching authors, most relevant first.
+     * @throws ResponseStatusException 400 if the page ends past {@link TextIndex#MAX_WINDOW}.
+     */
+    public SearchResult searchAuthors(String query, Integer offset, Integer limit) {
+        return search(authorNames, query, offset, limit);
+    }
+
+    public void indexBook(BookEntity book) {
+        indexBook(book.getId(), book.getTitle());
+    }
+
+    public void indexBook(Long id, String title) {
+        afterCommit(() -> bookTitles.put(id, title));
+    }
+
+    public void removeBook(Long id) {
+        afterCommit(() -> bookTitles.remove(id));
+    }
+
+    public void indexAuthor(AuthorEntity author) {
+        indexAuthor(author.getId(), author.getName());
+    }
+
+    public void indexAuthor(Long id, String name) {
+        afterCommit(() -> authorNames.put(id, name));
+    }
+
+    public void removeAuthor(Long id) {
+        afterCommit(() -> authorNames.remove(id));
+    }
+
+    /**
+     * Apply an index change once the current transaction commits, or at once outside a transaction.
+     */
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private static SearchResult search(TextIndex index, String query, Integer offset, Integer limit) {
+        int start = offset == null ? 0 : Math.max(offset, 0);
+        int size = CursorPage.clampLimit(limit);
+        if (start > TextIndex.MAX_WINDOW - size) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "offset + limit must not exceed " + TextIndex.MAX_WINDOW);
+        }
+        return index.search(query, start, size);
+    }
+
+    private <T> void indexAll(
+            BiFunction<Long, PageRequest, List<T>> nextPage,
+            Function<T, Long> idOf,
+            Consumer<T> index) {
+        long after = 0L;
+        List<T> page;
+        do {
+            page = nextPage.apply(after, PageRequest.ofSize(REBUILD_PAGE_SIZE));
+            page.forEach(index);
+            if (!page.isEmpty()) {
+                after = idOf.apply(page.get(page.size() - 1));
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,117 @@
+package com.libapi.service;
+
+import com.libapi.config.CacheConfig;
+import com.libapi.dto.CatalogTotals;
+import com.libapi.dto.CountStats;
+import com.libapi.dto.CursorPage;
+import com.libapi.dto.LibraryStats;
+import com.libapi.repository.AuthorRepository;
+import com.libapi.repository.BookRepository;
+import com.libapi.repository.CustomerRepository;
+import com.libapi.repository.LibraryRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Service computing catalog statistics with aggregate queries, without loading any entity.
+ * <p>
+ * Counts are grouped in the database one page of groups at a time, so a
+ * request only touches the index entries of the libraries, customers or
+ * authors on its page. Results are cached for a short time
+ * ({@code libapi.stats.cache-ttl}) and may lag writes by that much. Pages are
+ * cached by their clamped page size, so limits that yield the same page share
+ * one entry.
+ */
+@Service
+@Timed("libapi.service")
+public class StatsService {
+
+    private final BookRepository bookRepository;
+
+    private final AuthorRepository authorRepository;
+
+    private final CustomerRepository customerRepository;
+
+    private final LibraryRepository libraryRepository;
+
+    @Autowired
+    public StatsService(
+            BookRepository bookRepository,
+            AuthorRepository authorRepository,
+            CustomerRepository customerRepository,
+            LibraryRepository libraryRepository) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.customerRepository = customerRepository;
+        this.libraryRepository = libraryRepository;
+    }
+
+    /**
+     * Retrieve catalog-wide totals.
+     *
+     * @return Row counts of every entity and the number of lent books.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.STATS, key = "'totals'")
+    public CatalogTotals getTotals() {
+        return new CatalogTotals(
+                bookRepository.count(),
+                authorRepository.count(),
+                customerRepository.count(),
+                libraryRepository.count(),
+                bookRepository.countByCustomerIsNotNull());
+    }
+
+    /**
+     * Retrieve a page of per-library book counts, ordered by library id.
+     *
+     * @param after The id of the last library of the previous page, or null for the first page.
+     * @param limit The requested page size, capped at {@link CursorPage#MAX_LIMIT}.
+     * @return A page of LibraryStats objects with the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.STATS, key = "{'libraries', #after, T(com.libapi.dto.CursorPage).clampLimit(#limit)}")
+    public CursorPage<LibraryStats> getLibraryStats(Long after, Integer limit) {
+        int size = CursorPage.clampLimit(limit);
+        List<LibraryStats> rows = libraryRepository.countBooksByLibrary(
+                after == null ? 0L : after, size + 1);
+        return CursorPage.of(rows, size, LibraryStats::getId);
+    }
+
+    /**
+     * Retrieve a page of per-customer counts of lent books, ordered by customer id.
+     *
+     * @param after The id of the last customer of the previous page, or null for the first page.
+     * @param limit The requested page size, capped at {@link CursorPage#MAX_LIMIT}.
+     * @return A page of CountStats objects with the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.STATS, key = "{'customers', #after, T(com.libapi.dto.CursorPage).clampLimit(#limit)}")
+    public CursorPage<CountStats> getCustomerStats(Long after, Integer limit) {
+        int size = CursorPage.clampLimit(limit);
+        List<CountStats> rows = customerRepository.countBooksByCustomer(
+                after == null ? 0L : after, size + 1);
+        return CursorPage.of(rows, size, CountStats::getId);
+    }
+
+    /**
+     * Retrieve a page of per-author title counts, ordered by author id.
+     *
+     * @param after The id of the last author of the previous page, or null for the first page.
+     * @param limit The requested page size, capped at {@link CursorPage#MAX_LIMIT}.
+     * @return A page of CountStats objects with the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.STATS, key = "{'authors', #after, T(com.libapi.dto.CursorPage).clampLimit(#limit)}")
+    public CursorPage<CountStats> getAuthorStats(Long after, Integer limit) {
+        int size = CursorPage.clampLimit(limit);
+        List<CountStats> rows = authorRepository.countBooksByAuthor(
+                after == null ? 0L : after, size + 1);
+        return CursorPage.of(rows, size, CountStats::getId);
+    }
+}
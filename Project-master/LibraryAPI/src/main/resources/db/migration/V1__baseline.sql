@@ -0,0 +1,69 @@
+-- Schema as generated by Hibernate (ddl-auto=update) before migrations took over.
+-- Databases created that way are baselined at this version and skip this script.
+
+CREATE SEQUENCE IF NOT EXISTS author_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS book_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS customer_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS library_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS author (
+    id            BIGINT NOT NULL,
+    version       BIGINT DEFAULT 0 NOT NULL,
+    last_modified TIMESTAMP(6) WITH TIME ZONE,
+    name          VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS customer (
+    id            BIGINT NOT NULL,
+    version       BIGINT DEFAULT 0 NOT NULL,
+    last_modified TIMESTAMP(6) WITH TIME ZONE,
+    name          VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS library (
+    id            BIGINT NOT NULL,
+    version       BIGINT DEFAULT 0 NOT NULL,
+    last_modified TIMESTAMP(6) WITH TIME ZONE,
+    name          VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS book (
+    id            BIGINT NOT NULL,
+    version       BIGINT DEFAULT 0 NOT NULL,
+    last_modified TIMESTAMP(6) WITH TIME ZONE,
+    title         VARCHAR(255),
+    customer_id   BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS book_author (
+    author_id BIGINT NOT NULL,
+    book_id   BIGINT NOT NULL,
+    PRIMARY KEY (author_id, book_id)
+);
+
+-- Join table behind the former @JoinTable(name = "library_id") on BookEntity.library
+CREATE TABLE IF NOT EXISTS library_id (
+    id         BIGINT NOT NULL,
+    library_id BIGINT,
+    PRIMARY KEY (id)
+);
+
+-- Indexes for the foreign keys below; created first so that the constraints use them
+CREATE INDEX IF NOT EXISTS book_customer_id_idx ON book (customer_id);
+CREATE INDEX IF NOT EXISTS book_author_book_id_idx ON book_author (book_id, author_id);
+CREATE INDEX IF NOT EXISTS library_id_library_id_idx ON library_id (library_id);
+
+ALTER TABLE book ADD CONSTRAINT IF NOT EXISTS fk_book_customer
+    FOREIGN KEY (customer_id) REFERENCES customer (id);
+ALTER TABLE book_author ADD CONSTRAINT IF NOT EXISTS fk_book_author_author
+    FOREIGN KEY (author_id) REFERENCES author (id);
+ALTER TABLE book_author ADD CONSTRAINT IF NOT EXISTS fk_book_author_book
+    FOREIGN KEY (book_id) REFERENCES book (id);
+ALTER TABLE library_id ADD CONSTRAINT IF NOT EXISTS fk_library_id_book
+    FOREIGN KEY (id) REFERENCES book (id);
+ALTER TABLE library_id ADD CONSTRAINT IF NOT EXISTS fk_library_id_library
+    FOREIGN KEY (library_id) REFERENCES library (id);
@@ -0,0 +1,28 @@
+-- Databases baselined from ddl-auto=update may predate the version columns
+ALTER TABLE author ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE author ADD COLUMN IF NOT EXISTS last_modified TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE book ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE book ADD COLUMN IF NOT EXISTS last_modified TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE customer ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE customer ADD COLUMN IF NOT EXISTS last_modified TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE library ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE library ADD COLUMN IF NOT EXISTS last_modified TIMESTAMP(6) WITH TIME ZONE;
+
+-- The book -> library link becomes a foreign key column on book instead of a join table
+ALTER TABLE book ADD COLUMN IF NOT EXISTS library_id BIGINT;
+UPDATE book SET library_id = (SELECT link.library_id FROM library_id link WHERE link.id = book.id);
+DROP TABLE library_id;
+
+-- Indexes matched to the queries the services run. Each is created before its foreign key, which
+-- then uses it instead of adding its own. Fresh databases already have the last two from V1.
+
+-- Books of a library: LibraryEntity.books, the library entity graph
+CREATE INDEX IF NOT EXISTS book_library_id_idx ON book (library_id);
+ALTER TABLE book ADD CONSTRAINT IF NOT EXISTS fk_book_library FOREIGN KEY (library_id) REFERENCES library (id);
+
+-- Books lent to a customer: CustomerEntity.books, the customer entity graph, checkout and return
+CREATE INDEX IF NOT EXISTS book_customer_id_idx ON book (customer_id);
+
+-- Authors of a book: BookEntity.authors. Covers the join, so author ids come from the index alone.
+-- Books of an author use the (author_id, book_id) primary key.
+CREATE INDEX IF NOT EXISTS book_author_book_id_idx ON book_author (book_id, author_id);
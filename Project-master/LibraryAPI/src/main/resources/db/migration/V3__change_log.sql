@@ -0,0 +1,14 @@
+-- Append-only log of catalog changes made through the services, read by the /changes feed.
+-- seq orders the entries; identity values are not transactional, so rolled-back writes leave gaps.
+CREATE TABLE IF NOT EXISTS change_log (
+    seq         BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    resource    VARCHAR(16) NOT NULL,
+    resource_id BIGINT NOT NULL,
+    operation   VARCHAR(16) NOT NULL,
+    related_id  BIGINT,
+    changed_at  TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    PRIMARY KEY (seq)
+);
+
+-- Retention trims the oldest entries by time
+CREATE INDEX IF NOT EXISTS change_log_changed_at_idx ON change_log (changed_at);
@@ -0,0 +1,87 @@
+package com.libapi;
+
+import com.libapi.entity.AuthorEntity;
+import com.libapi.entity.BookEntity;
+import com.libapi.entity.CustomerEntity;
+import com.libapi.entity.LibraryEntity;
+import com.libapi.repository.AuthorRepository;
+import com.libapi.repository.BookRepository;
+import com.libapi.repository.CustomerRepository;
+import com.libapi.repository.LibraryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates unrelated entities for tests to link, each in its own transaction.
+ * <p>
+ * Tests in the same Spring context share its database, so they work with the
+ * ids returned here and never assume which other rows exist.
+ */
+@Component
+public class CatalogFixtures {
+
+	private final BookRepository bookRepository;
+
+	private final AuthorRepository authorRepository;
+
+	private final CustomerRepository customerRepository;
+
+	private final LibraryRepository libraryRepository;
+
+	@Autowired
+	public CatalogFixtures(
+			BookRepository bookRepository,
+			AuthorRepository authorRepository,
+			CustomerRepository customerRepository,
+			LibraryRepository libraryRepository) {
+		this.bookRepository = bookRepository;
+		this.authorRepository = authorRepository;
+		this.customerRepository = customerRepository;
+		this.libraryRepository = libraryRepository;
+	}
+
+	/**
+	 * Create a book titled "Title".
+	 */
+	public Long newBook() {
+		BookEntity book = new BookEntity();
+		book.setTitle("Title");
+		return bookRepository.save(book).getId();
+	}
+
+	/**
+	 * Create books titled "Title 0", "Title 1" and so on.
+	 *
+	 * @return The ids of the books, in title order.
+	 */
+	public List<Long> newBooks(int count) {
+		List<BookEntity> books = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			BookEntity book = new BookEntity();
+			book.setTitle("Title " + i);
+			books.add(book);
+		}
+		return bookRepository.saveAll(books).stream().map(BookEntity::getId).toList();
+	}
+
+	public Long newAuthor() {
+		AuthorEntity author = new AuthorEntity();
+		author.setName("Writer");
+		return authorRepository.save(author).getId();
+	}
+
+	public Long newCustomer() {
+		CustomerEntity customer = new CustomerEntity();
+		customer.setName("Reader");
+		return customerRepository.save(customer).getId();
+	}
+
+	public Long newLibrary() {
+		LibraryEntity library = new LibraryEntity();
+		library.setName("Branch");
+		return libraryRepository.save(library).getId();
+	}
+}
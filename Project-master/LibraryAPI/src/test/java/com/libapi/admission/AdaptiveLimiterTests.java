@@ -0,0 +1,106 @@
+package com.libapi.admission;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimiterTests {
+
+	private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	void fullLimiterWithoutQueueRejectsAtOnce() throws Exception {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, 0);
+
+		assertThat(limiter.acquire(0)).isEqualTo(AdaptiveLimiter.Outcome.ADMITTED);
+		assertThat(limiter.acquire(0)).isEqualTo(AdaptiveLimiter.Outcome.ADMITTED);
+		assertThat(limiter.acquire(TimeUnit.SECONDS.toNanos(1))).isEqualTo(AdaptiveLimiter.Outcome.QUEUE_FULL);
+		assertThat(limiter.getInFlight()).isEqualTo(2);
+	}
+
+	@Test
+	void queuedRequestTakesTheReleasedSlot() throws Exception {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 10, 1);
+		limiter.acquire(0);
+
+		CompletableFuture<AdaptiveLimiter.Outcome> waiting = CompletableFuture.supplyAsync(() -> {
+			try {
+				return limiter.acquire(TimeUnit.SECONDS.toNanos(10));
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		while (limiter.getQueued() == 0) {
+			Thread.onSpinWait();
+		}
+		assertThat(limiter.acquire(0)).isEqualTo(AdaptiveLimiter.Outcome.QUEUE_FULL);
+
+		limiter.release(-1);
+		assertThat(waiting.get(10, TimeUnit.SECONDS)).isEqualTo(AdaptiveLimiter.Outcome.ADMITTED);
+		assertThat(limiter.getQueued()).isZero();
+	}
+
+	@Test
+	void queuedRequestTimesOut() throws Exception {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 10, 1);
+		limiter.acquire(0);
+
+		assertThat(limiter.acquire(10 * MILLIS)).isEqualTo(AdaptiveLimiter.Outcome.TIMED_OUT);
+		assertThat(limiter.getQueued()).isZero();
+	}
+
+	@Test
+	void limitGrowsWhileLatencyIsSteadyAndShrinksWhenItRises() throws Exception {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 50, 0);
+
+		for (int i = 0; i < 10; i++) {
+			saturate(limiter, MILLIS);
+		}
+		int grown = limiter.getLimit();
+		assertThat(grown).isGreaterThan(8);
+
+		saturate(limiter, 10 * MILLIS);
+		saturate(limiter, 10 * MILLIS);
+		assertThat(limiter.getLimit()).isLessThan(grown / 2);
+	}
+
+	@Test
+	void idleLimiterDoesNotGrow() throws Exception {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 50, 0);
+
+		for (int i = 0; i < 100; i++) {
+			limiter.acquire(0);
+			limiter.release(MILLIS);
+		}
+		assertThat(limiter.getLimit()).isEqualTo(8);
+	}
+
+	@Test
+	void requestsAreGroupedByShape() {
+		assertThat(EndpointGroup.of(new MockHttpServletRequest("GET", "/books"))).isEqualTo(EndpointGroup.LIST);
+		assertThat(EndpointGroup.of(new MockHttpServletRequest("GET", "/books/export"))).isEqualTo(EndpointGroup.LIST);
+		assertThat(EndpointGroup.of(new MockHttpServletRequest("GET", "/stats/libraries"))).isEqualTo(EndpointGroup.LIST);
+		assertThat(EndpointGroup.of(new MockHttpServletRequest("GET", "/books/42"))).isEqualTo(EndpointGroup.POINT);
+		assertThat(EndpointGroup.of(new MockHttpServletRequest("POST", "/customers/1/addBook/2"))).isEqualTo(EndpointGroup.WRITE);
+		assertThat(EndpointGroup.of(new MockHttpServletRequest("DELETE", "/books/42"))).isEqualTo(EndpointGroup.WRITE);
+		assertThat(EndpointGroup.of(new MockHttpServletRequest("GET", "/changes/stream"))).isNull();
+		assertThat(EndpointGroup.of(new MockHttpServletRequest("GET", "/actuator/prometheus"))).isNull();
+	}
+
+	/**
+	 * Fill every slot, then release them all with the same latency.
+	 */
+	private static void saturate(AdaptiveLimiter limiter, long rttNanos) throws InterruptedException {
+		int admitted = 0;
+		while (limiter.acquire(0) == AdaptiveLimiter.Outcome.ADMITTED) {
+			admitted++;
+		}
+		for (int i = 0; i < admitted; i++) {
+			limiter.release(rttNanos);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.libapi.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AfterCommitEvictingCacheTests {
+
+	private final AfterCommitEvictingCache cache =
+			new AfterCommitEvictingCache("books", Caffeine.newBuilder().build(), true);
+
+	@AfterEach
+	void endTransaction() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void entryPutBackBeforeTheCommitIsEvictedByIt() {
+		cache.put(1L, "old");
+		TransactionSynchronizationManager.initSynchronization();
+
+		cache.evict(1L);
+		cache.put(1L, "old");
+		assertThat(cache.get(1L)).isNotNull();
+
+		commit();
+		assertThat(cache.get(1L)).isNull();
+	}
+
+	@Test
+	void readThatMissedBeforeTheCommitIsNotCached() {
+		TransactionSynchronizationManager.initSynchronization();
+		cache.evict(1L);
+
+		assertThat(cache.get(1L)).isNull();
+		commit();
+		cache.put(1L, "loaded before the commit");
+		assertThat(cache.get(1L)).isNull();
+
+		cache.put(1L, "loaded after the commit");
+		assertThat(cache.get(1L).get()).isEqualTo("loaded after the commit");
+	}
+
+	@Test
+	void clearIsRepeatedAfterTheCommit() {
+		TransactionSynchronizationManager.initSynchronization();
+		cache.clear();
+		cache.put(1L, "old");
+
+		commit();
+		assertThat(cache.get(1L)).isNull();
+	}
+
+	private static void commit() {
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCommit();
+		}
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+}
@@ -0,0 +1,33 @@
+package com.libapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheConfigTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withInitializer(context -> context.getBeanFactory().setConversionService(new ApplicationConversionService()))
+			.withConfiguration(AutoConfigurations.of(CacheAutoConfiguration.class))
+			.withUserConfiguration(CacheConfig.class)
+			.withPropertyValues("spring.cache.cache-names=" + CacheConfig.BOOKS);
+
+	@Test
+	void caffeineCachesEvictAfterCommit() {
+		contextRunner.withPropertyValues("spring.cache.type=caffeine").run(context ->
+				assertThat(context.getBean(CacheManager.class).getCache(CacheConfig.BOOKS))
+						.isInstanceOf(AfterCommitEvictingCache.class));
+	}
+
+	@Test
+	void cacheCanBeTurnedOff() {
+		contextRunner.withPropertyValues("spring.cache.type=none").run(context ->
+				assertThat(context.getBean(CacheManager.class)).isInstanceOf(NoOpCacheManager.class));
+	}
+}
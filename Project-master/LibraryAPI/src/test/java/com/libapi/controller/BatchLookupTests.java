@@ -0,0 +1,78 @@
+package com.libapi.controller;
+
+import com.libapi.CatalogFixtures;
+import com.libapi.dto.BatchResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Batch lookups return the entities in the requested order and report the ids
+ * that were not found.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BatchLookupTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CatalogFixtures catalog;
+
+	@Test
+	void booksFollowTheRequestedOrder() throws Exception {
+		List<Long> bookIds = catalog.newBooks(3);
+		String ids = bookIds.get(2) + ",-1," + bookIds.get(0) + "," + bookIds.get(2) + ",," + bookIds.get(1) + ",-1";
+
+		mockMvc.perform(get("/books/batch").param("ids", ids))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[*].id").value(contains(
+						bookIds.get(2).intValue(), bookIds.get(0).intValue(), bookIds.get(1).intValue())))
+				.andExpect(jsonPath("$.missing").value(contains(-1)));
+
+		mockMvc.perform(get("/books/batch").param("ids", ids).param("fields", "title"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[*].title").value(contains("Title 2", "Title 0", "Title 1")))
+				.andExpect(jsonPath("$.missing").value(contains(-1)));
+	}
+
+	@Test
+	void booksAreFoundAcrossChunks() throws Exception {
+		List<Long> bookIds = catalog.newBooks(BatchResult.MAX_IDS - 1);
+		List<Long> requested = new ArrayList<>(bookIds.reversed());
+		requested.add(bookIds.size() / 2, -1L);
+		String ids = String.join(",", requested.stream().map(String::valueOf).toList());
+
+		mockMvc.perform(get("/books/batch").param("ids", ids))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items", hasSize(bookIds.size())))
+				.andExpect(jsonPath("$.items[0].id").value(bookIds.get(bookIds.size() - 1)))
+				.andExpect(jsonPath("$.items[" + (bookIds.size() - 1) + "].id").value(bookIds.get(0)))
+				.andExpect(jsonPath("$.missing").value(contains(-1)));
+	}
+
+	@Test
+	void tooManyIdsAreRejected() throws Exception {
+		String ids = String.join(",", LongStream.rangeClosed(1, BatchResult.MAX_IDS + 1).mapToObj(String::valueOf).toList());
+
+		mockMvc.perform(get("/books/batch").param("ids", ids))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/libraries/batch").param("ids", ids).param("fields", "name"))
+				.andExpect(status().isBadRequest());
+	}
+}
@@ -0,0 +1,225 @@
+package com.libapi.controller;
+
+import com.libapi.CatalogFixtures;
+import com.libapi.config.CacheConfig;
+import com.libapi.entity.BookEntity;
+import com.libapi.repository.BookRepository;
+import com.libapi.service.CustomerService;
+import com.libapi.service.LibraryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional GETs answered from the entity versions, and If-Match on writes.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalRequestTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private ApiExceptionHandler apiExceptionHandler;
+
+	@Autowired
+	private LibraryService libraryService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private CatalogFixtures catalog;
+
+	private Long bookId;
+
+	@BeforeEach
+	void createBook() {
+		BookEntity book = new BookEntity();
+		book.setTitle("Dune");
+		bookId = bookRepository.save(book).getId();
+	}
+
+	@Test
+	void unchangedBookIsNotModified() throws Exception {
+		String etag = etagOf("/books/" + bookId);
+
+		mockMvc.perform(get("/books/" + bookId).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void updateChangesTheEtag() throws Exception {
+		String etag = etagOf("/books/" + bookId);
+
+		mockMvc.perform(put("/books/" + bookId)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Dune Messiah\"}"))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/books/" + bookId).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+		assertThat(etagOf("/books/" + bookId)).isNotEqualTo(etag);
+	}
+
+	@Test
+	void staleIfMatchIsRejected() throws Exception {
+		String etag = etagOf("/books/" + bookId);
+
+		mockMvc.perform(put("/books/" + bookId)
+						.header(HttpHeaders.IF_MATCH, etag)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Dune Messiah\"}"))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(put("/books/" + bookId)
+						.header(HttpHeaders.IF_MATCH, etag)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Children of Dune\"}"))
+				.andExpect(status().isPreconditionFailed());
+		mockMvc.perform(delete("/books/" + bookId).header(HttpHeaders.IF_MATCH, etag))
+				.andExpect(status().isPreconditionFailed());
+		assertThat(bookRepository.findById(bookId)).isPresent();
+	}
+
+	@Test
+	void ifMatchIsCheckedAgainstTheStoredBookNotTheCache() throws Exception {
+		etagOf("/books/" + bookId);
+		Cache books = cacheManager.getCache(CacheConfig.BOOKS);
+		Object stale = books.get(bookId).get();
+
+		mockMvc.perform(put("/books/" + bookId)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Dune Messiah\"}"))
+				.andExpect(status().isOk());
+		String etag = etagOf("/books/" + bookId);
+		books.put(bookId, stale);
+		assertThat(etagOf("/books/" + bookId)).isNotEqualTo(etag);
+
+		mockMvc.perform(put("/books/" + bookId)
+						.header(HttpHeaders.IF_MATCH, etag)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Children of Dune\"}"))
+				.andExpect(status().isOk());
+		assertThat(bookRepository.findById(bookId).orElseThrow().getTitle()).isEqualTo("Children of Dune");
+	}
+
+	@Test
+	void lostConcurrentWriteIsAConflict() {
+		MockHttpServletRequest unconditional = new MockHttpServletRequest("PUT", "/books/" + bookId);
+		assertThat(apiExceptionHandler.concurrentWrite(new ServletWebRequest(unconditional)).getStatusCode())
+				.isEqualTo(HttpStatus.CONFLICT);
+
+		MockHttpServletRequest conditional = new MockHttpServletRequest("PUT", "/books/" + bookId);
+		conditional.addHeader(HttpHeaders.IF_MATCH, "\"1\"");
+		assertThat(apiExceptionHandler.concurrentWrite(new ServletWebRequest(conditional)).getStatusCode())
+				.isEqualTo(HttpStatus.PRECONDITION_FAILED);
+	}
+
+	@Test
+	void etagIsWeakAndDependsOnTheFormat() throws Exception {
+		String json = etagOf("/books/" + bookId);
+		String cbor = mockMvc.perform(get("/books/" + bookId).accept(MediaType.APPLICATION_CBOR))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		assertThat(json).startsWith("W/\"").endsWith("-json\"");
+		assertThat(cbor).startsWith("W/\"").endsWith("-cbor\"").isNotEqualTo(json);
+		mockMvc.perform(get("/books/" + bookId).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, json))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get("/books/" + bookId).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(put("/books/" + bookId)
+						.header(HttpHeaders.IF_MATCH, cbor)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\"Dune Messiah\"}"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void lendingABookChangesItsLibrarysEtag() throws Exception {
+		Long libraryId = catalog.newLibrary();
+		libraryService.associateBookWithLibrary(libraryId, bookId);
+		String etag = etagOf("/libraries/" + libraryId);
+
+		customerService.checkOutBook(catalog.newCustomer(), bookId);
+
+		mockMvc.perform(get("/libraries/" + libraryId).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void shelvingABookChangesItsBorrowersEtag() throws Exception {
+		Long customerId = catalog.newCustomer();
+		customerService.checkOutBook(customerId, bookId);
+		String etag = etagOf("/customers/" + customerId);
+
+		libraryService.associateBookWithLibrary(catalog.newLibrary(), bookId);
+
+		mockMvc.perform(get("/customers/" + customerId).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void removedBookIsNotHiddenByIfModifiedSince() throws Exception {
+		Long libraryId = catalog.newLibrary();
+		Long otherBookId = catalog.newBook();
+		libraryService.associateBookWithLibrary(libraryId, bookId);
+		libraryService.associateBookWithLibrary(libraryId, otherBookId);
+
+		mockMvc.perform(get("/libraries/" + libraryId))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+		libraryService.associateBookWithLibrary(catalog.newLibrary(), otherBookId);
+
+		mockMvc.perform(get("/libraries/" + libraryId).header(HttpHeaders.IF_MODIFIED_SINCE, "Fri, 01 Jan 2100 00:00:00 GMT"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/authors/" + catalog.newAuthor()))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+	}
+
+	@Test
+	void unchangedPageIsNotModified() throws Exception {
+		String etag = etagOf("/books");
+
+		mockMvc.perform(get("/books").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+	}
+
+	private String etagOf(String uri) throws Exception {
+		return mockMvc.perform(get(uri))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+	}
+}
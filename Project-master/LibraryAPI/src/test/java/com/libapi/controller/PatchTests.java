@@ -0,0 +1,130 @@
+package com.libapi.controller;
+
+import com.libapi.entity.AuthorEntity;
+import com.libapi.entity.BookEntity;
+import com.libapi.repository.AuthorRepository;
+import com.libapi.repository.BookRepository;
+import com.libapi.service.AuthorService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PATCH applies merge patches with a single UPDATE and leaves associations alone.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PatchTests {
+
+	private static final MediaType MERGE_PATCH = MediaType.parseMediaType("application/merge-patch+json");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private AuthorRepository authorRepository;
+
+	@Autowired
+	private AuthorService authorService;
+
+	private Statistics statistics;
+
+	private Long bookId;
+
+	@BeforeEach
+	void createBook() {
+		BookEntity book = new BookEntity();
+		book.setTitle("Dune");
+		bookId = bookRepository.save(book).getId();
+
+		AuthorEntity author = new AuthorEntity();
+		author.setName("Frank Herbert");
+		authorService.addBooksToAuthor(authorRepository.save(author).getId(), List.of(bookId));
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void patchUpdatesOnlyTheTitle() throws Exception {
+		long version = bookRepository.findById(bookId).orElseThrow().getVersion();
+
+		mockMvc.perform(patch("/books/" + bookId).contentType(MERGE_PATCH).content("{\"title\":\"Dune Messiah\"}"))
+				.andExpect(status().isNoContent());
+
+		mockMvc.perform(get("/books/" + bookId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Dune Messiah"))
+				.andExpect(jsonPath("$.version").value(version + 1))
+				.andExpect(jsonPath("$.authors", hasSize(1)));
+	}
+
+	@Test
+	void patchRunsOneStatementWherePutRunsMore() throws Exception {
+		statistics.clear();
+		mockMvc.perform(put("/books/" + bookId).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Dune Messiah\"}"))
+				.andExpect(status().isOk());
+		long putStatements = statistics.getPrepareStatementCount();
+
+		statistics.clear();
+		mockMvc.perform(patch("/books/" + bookId).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Children of Dune\"}"))
+				.andExpect(status().isNoContent());
+		long patchStatements = statistics.getPrepareStatementCount();
+
+		assertThat(patchStatements).isEqualTo(1);
+		assertThat(putStatements).isGreaterThan(patchStatements);
+	}
+
+	@Test
+	void missingEntityIsNotFound() throws Exception {
+		mockMvc.perform(patch("/libraries/-1").contentType(MERGE_PATCH).content("{\"name\":\"Central\"}"))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(patch("/customers/-1").contentType(MERGE_PATCH).content("{}"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void onlyTheWritableFieldCanBePatched() throws Exception {
+		mockMvc.perform(patch("/books/" + bookId).contentType(MERGE_PATCH).content("{\"authors\":[]}"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(patch("/books/" + bookId).contentType(MERGE_PATCH).content("{\"title\":42}"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void staleIfMatchIsRejected() throws Exception {
+		String etag = mockMvc.perform(get("/books/" + bookId)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(patch("/books/" + bookId).header(HttpHeaders.IF_MATCH, etag)
+						.contentType(MERGE_PATCH).content("{\"title\":\"Dune Messiah\"}"))
+				.andExpect(status().isNoContent());
+		mockMvc.perform(patch("/books/" + bookId).header(HttpHeaders.IF_MATCH, etag)
+						.contentType(MERGE_PATCH).content("{\"title\":\"Children of Dune\"}"))
+				.andExpect(status().isPreconditionFailed());
+	}
+}
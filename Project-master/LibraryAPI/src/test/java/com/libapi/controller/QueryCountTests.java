@@ -0,0 +1,187 @@
+package com.libapi.controller;
+
+import com.libapi.entity.AuthorEntity;
+import com.libapi.entity.BookEntity;
+import com.libapi.entity.CustomerEntity;
+import com.libapi.entity.LibraryEntity;
+import com.libapi.repository.AuthorRepository;
+import com.libapi.repository.BookRepository;
+import com.libapi.repository.CustomerRepository;
+import com.libapi.repository.LibraryRepository;
+import com.libapi.service.CatalogExportService;
+import jakarta.persistence.EntityManagerFactory;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.as;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Asserts how many SQL statements each read endpoint issues, including the
+ * lazy loading that happens while the response is serialized.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryCountTests {
+
+	private static final int LIBRARIES = 3;
+	private static final int CUSTOMERS = 4;
+	private static final int AUTHORS = 5;
+	private static final int BOOKS = 30;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private AuthorRepository authorRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private LibraryRepository libraryRepository;
+
+	@Autowired
+	private CatalogExportService catalogExportService;
+
+	private Statistics statistics;
+
+	private Long bookId;
+	private Long authorId;
+	private Long customerId;
+	private Long libraryId;
+
+	@BeforeAll
+	void seed() {
+		List<LibraryEntity> libraries = new ArrayList<>();
+		for (int i = 0; i < LIBRARIES; i++) {
+			LibraryEntity library = new LibraryEntity();
+			library.setName("Library " + i);
+			libraries.add(libraryRepository.save(library));
+		}
+		List<CustomerEntity> customers = new ArrayList<>();
+		for (int i = 0; i < CUSTOMERS; i++) {
+			CustomerEntity customer = new CustomerEntity();
+			customer.setName("Customer " + i);
+			customers.add(customerRepository.save(customer));
+		}
+		List<BookEntity> books = new ArrayList<>();
+		for (int i = 0; i < BOOKS; i++) {
+			BookEntity book = new BookEntity();
+			book.setTitle("Book " + i);
+			book.setLibrary(libraries.get(i % LIBRARIES));
+			if (i % 2 == 0) {
+				book.setCustomer(customers.get(i % CUSTOMERS));
+			}
+			books.add(bookRepository.save(book));
+		}
+		for (int i = 0; i < AUTHORS; i++) {
+			AuthorEntity author = new AuthorEntity();
+			author.setName("Author " + i);
+			for (int j = i; j < BOOKS; j += AUTHORS) {
+				author.getBooks().add(books.get(j));
+				author.getBooks().add(books.get((j + 1) % BOOKS));
+			}
+			authorRepository.save(author);
+		}
+
+		bookId = books.get(0).getId();
+		authorId = authorRepository.findAll().get(0).getId();
+		customerId = customers.get(0).getId();
+		libraryId = libraries.get(0).getId();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@BeforeEach
+	void resetStatistics() {
+		statistics.clear();
+	}
+
+	@Test
+	void listBooksLoadsAuthorsInOneBatch() throws Exception {
+		mockMvc.perform(get("/books").param("limit", String.valueOf(BOOKS))).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void getBookFetchesAuthorsWithTheBook() throws Exception {
+		mockMvc.perform(get("/books/{id}", bookId)).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1);
+	}
+
+	@Test
+	void listAuthorsIsASingleQuery() throws Exception {
+		mockMvc.perform(get("/authors")).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1);
+	}
+
+	@Test
+	void getAuthorIsASingleQuery() throws Exception {
+		mockMvc.perform(get("/authors/{id}", authorId)).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1);
+	}
+
+	@Test
+	void listCustomersLoadsBooksAndAuthorsInBatches() throws Exception {
+		mockMvc.perform(get("/customers")).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+	}
+
+	@Test
+	void getCustomerFetchesBooksThenAuthorsInOneBatch() throws Exception {
+		mockMvc.perform(get("/customers/{id}", customerId)).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void listLibrariesLoadsBooksAndAuthorsInBatches() throws Exception {
+		mockMvc.perform(get("/libraries")).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+	}
+
+	@Test
+	void getLibraryFetchesBooksThenAuthorsInOneBatch() throws Exception {
+		mockMvc.perform(get("/libraries/{id}", libraryId)).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void exportReadsAuthorIdsOncePerChunk() throws Exception {
+		long chunks = (bookRepository.count() + CatalogExportService.CLEAR_INTERVAL - 1) / CatalogExportService.CLEAR_INTERVAL;
+		statistics.clear();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		catalogExportService.exportBooks(out);
+
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1 + chunks);
+		assertThat(out.toString(StandardCharsets.UTF_8).lines())
+				.filteredOn(line -> line.startsWith("{\"id\":" + bookId + ","))
+				.singleElement(as(InstanceOfAssertFactories.STRING))
+				.matches(".*\"title\":\"Book 0\",\"authorIds\":\\[\\d+,\\d+\\],.*");
+	}
+}
@@ -0,0 +1,142 @@
+package com.libapi.controller;
+
+import com.libapi.entity.AuthorEntity;
+import com.libapi.entity.BookEntity;
+import com.libapi.entity.LibraryEntity;
+import com.libapi.repository.AuthorRepository;
+import com.libapi.repository.BookRepository;
+import com.libapi.repository.LibraryRepository;
+import com.libapi.service.AuthorService;
+import com.libapi.service.BookService;
+import com.libapi.service.LibraryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET requests with {@code fields=} render only the requested fields.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SparseFieldsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private AuthorRepository authorRepository;
+
+	@Autowired
+	private LibraryRepository libraryRepository;
+
+	@Autowired
+	private AuthorService authorService;
+
+	@Autowired
+	private LibraryService libraryService;
+
+	@Autowired
+	private BookService bookService;
+
+	private Long bookId;
+
+	private Long authorId;
+
+	private Long libraryId;
+
+	@BeforeEach
+	void createCatalog() {
+		BookEntity book = new BookEntity();
+		book.setTitle("Dune");
+		bookId = bookRepository.save(book).getId();
+
+		AuthorEntity author = new AuthorEntity();
+		author.setName("Frank Herbert");
+		authorId = authorRepository.save(author).getId();
+		authorService.addBooksToAuthor(authorId, List.of(bookId));
+
+		LibraryEntity library = new LibraryEntity();
+		library.setName("Central");
+		libraryId = libraryRepository.save(library).getId();
+		libraryService.addBooksToLibrary(libraryId, List.of(bookId));
+	}
+
+	@Test
+	void onlyRequestedColumnsAreRendered() throws Exception {
+		mockMvc.perform(get("/books/" + bookId).param("fields", "title"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.id").value(bookId))
+				.andExpect(jsonPath("$.title").value("Dune"))
+				.andExpect(jsonPath("$.version").doesNotExist())
+				.andExpect(jsonPath("$.authors").doesNotExist());
+	}
+
+	@Test
+	void requestedAssociationIsRenderedAsIdAndLabel() throws Exception {
+		mockMvc.perform(get("/books/" + bookId).param("fields", "title,authors"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.authors", hasSize(1)))
+				.andExpect(jsonPath("$.authors[0].name").value("Frank Herbert"));
+
+		mockMvc.perform(get("/libraries/batch").param("ids", libraryId + ",-1").param("fields", "books"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].name").doesNotExist())
+				.andExpect(jsonPath("$.items[0].books[0].id").value(bookId))
+				.andExpect(jsonPath("$.items[0].books[0].title").value("Dune"))
+				.andExpect(jsonPath("$.missing[0]").value(-1));
+	}
+
+	@Test
+	void pagesCarryACursor() throws Exception {
+		mockMvc.perform(get("/books").param("fields", "title").param("after", String.valueOf(bookId - 1)).param("limit", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items", hasSize(1)))
+				.andExpect(jsonPath("$.items[0].title").value("Dune"));
+	}
+
+	@Test
+	void etagFollowsVersionsNotContentHashes() throws Exception {
+		bookService.patchBook(bookId, Map.of("title", "Aa"), null);
+		String etag = etagOf("/books/" + bookId, "title");
+
+		// "Aa" and "BB" have the same String.hashCode()
+		bookService.patchBook(bookId, Map.of("title", "BB"), null);
+		String retitled = etagOf("/books/" + bookId, "title");
+		assertThat(retitled).isNotEqualTo(etag);
+
+		String withAuthors = etagOf("/books/" + bookId, "authors");
+		authorService.patchAuthor(authorId, Map.of("name", "F. Herbert"), null);
+		assertThat(etagOf("/books/" + bookId, "authors")).isNotEqualTo(withAuthors);
+		assertThat(etagOf("/books/" + bookId, "title")).isEqualTo(retitled);
+	}
+
+	@Test
+	void unknownFieldIsRejected() throws Exception {
+		mockMvc.perform(get("/authors").param("fields", "name,books"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private String etagOf(String uri, String fields) throws Exception {
+		return mockMvc.perform(get(uri).param("fields", fields))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+	}
+}
@@ -0,0 +1,109 @@
+package com.libapi.controller;
+
+import com.libapi.CatalogFixtures;
+import com.libapi.config.CacheConfig;
+import com.libapi.dto.CursorPage;
+import com.libapi.service.CustomerService;
+import com.libapi.service.LibraryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The stats endpoints count in the database and cache each page by its
+ * clamped page size.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StatsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private LibraryService libraryService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private CatalogFixtures catalog;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void clearStats() {
+		cacheManager.getCache(CacheConfig.STATS).clear();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void libraryStatsCountBooksAndLoans() throws Exception {
+		Long libraryId = catalog.newLibrary();
+		List<Long> bookIds = catalog.newBooks(3);
+		libraryService.addBooksToLibrary(libraryId, bookIds);
+		customerService.checkOutBooks(catalog.newCustomer(), bookIds.subList(0, 1));
+
+		mockMvc.perform(get("/stats/libraries").param("after", String.valueOf(libraryId - 1)).param("limit", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.limit").value(1))
+				.andExpect(jsonPath("$.items[0].id").value(libraryId))
+				.andExpect(jsonPath("$.items[0].books").value(3))
+				.andExpect(jsonPath("$.items[0].checkedOut").value(1))
+				.andExpect(jsonPath("$.items[0].available").value(2));
+	}
+
+	@Test
+	void totalsAreCached() throws Exception {
+		mockMvc.perform(get("/stats")).andExpect(status().isOk());
+
+		statistics.clear();
+		mockMvc.perform(get("/stats"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.books").isNumber());
+
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void limitsYieldingTheSamePageShareACacheEntry() throws Exception {
+		statistics.clear();
+		for (String limit : List.of(String.valueOf(CursorPage.MAX_LIMIT), String.valueOf(CursorPage.MAX_LIMIT + 1), "1000000")) {
+			mockMvc.perform(get("/stats/authors").param("limit", limit))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.limit").value(CursorPage.MAX_LIMIT));
+		}
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+		statistics.clear();
+		mockMvc.perform(get("/stats/authors")).andExpect(status().isOk());
+		for (String limit : List.of("0", "-1", String.valueOf(CursorPage.DEFAULT_LIMIT))) {
+			mockMvc.perform(get("/stats/authors").param("limit", limit))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.limit").value(CursorPage.DEFAULT_LIMIT));
+		}
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+}
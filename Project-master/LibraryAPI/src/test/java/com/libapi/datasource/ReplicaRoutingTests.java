@@ -0,0 +1,108 @@
+package com.libapi.datasource;
+
+import com.libapi.entity.BookEntity;
+import com.libapi.repository.BookRepository;
+import com.libapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing between the primary and the in-memory replica kept by the replication stand-in.
+ */
+@SpringBootTest(properties = {
+		"libapi.datasource.replica.enabled=true",
+		"libapi.datasource.replica.sync-interval=PT1H"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingTests {
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private ReplicationStandIn replication;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate readOnly;
+
+	@BeforeEach
+	void setUp() {
+		// The test's mock request would carry the watermark of its own writes and keep every read on the primary
+		RequestContextHolder.resetRequestAttributes();
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+	}
+
+	@Test
+	void readOnlyTransactionsUseTheReplica() throws Exception {
+		Long id = save("Replicated");
+		replication.sync();
+		double replicaReads = connections("replica", "read");
+
+		assertThat(findReadOnly(id)).isPresent();
+		assertThat(connections("replica", "read")).isEqualTo(replicaReads + 1);
+	}
+
+	@Test
+	void writesUseThePrimary() {
+		double writes = connections("primary", "write");
+
+		save("Written");
+
+		assertThat(connections("primary", "write")).isGreaterThan(writes);
+	}
+
+	@Test
+	void replicaServesItsSnapshotUntilTheNextSync() throws Exception {
+		replication.sync();
+		Long id = save("Not yet replicated");
+
+		assertThat(findReadOnly(id)).isEmpty();
+		replication.sync();
+		assertThat(findReadOnly(id)).isPresent();
+	}
+
+	@Test
+	void cachedReadsUseThePrimary() throws Exception {
+		replication.sync();
+		Long id = save("Cached");
+		double replicaReads = connections("replica", "read");
+
+		assertThat(bookService.getBookById(id)).isNotNull();
+		assertThat(connections("replica", "read")).isEqualTo(replicaReads);
+		assertThat(connections("primary", "cached_read")).isPositive();
+	}
+
+	private Long save(String title) {
+		BookEntity book = new BookEntity();
+		book.setTitle(title);
+		return bookRepository.save(book).getId();
+	}
+
+	private Optional<BookEntity> findReadOnly(Long id) {
+		return readOnly.execute(status -> bookRepository.findById(id));
+	}
+
+	private double connections(String route, String reason) {
+		return meterRegistry.counter("libapi.datasource.connections", "route", route, "reason", reason).count();
+	}
+}
@@ -0,0 +1,51 @@
+package com.libapi.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the queries behind the entity associations are answered from
+ * the indexes created by the migrations rather than by scanning.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaIndexTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void booksOfCustomersUseTheCustomerIndex() {
+		assertThat(plan("SELECT id FROM book WHERE customer_id IN (1, 2, 3)"))
+				.contains("BOOK_CUSTOMER_ID_IDX");
+	}
+
+	@Test
+	void booksOfLibrariesUseTheLibraryIndex() {
+		assertThat(plan("SELECT id FROM book WHERE library_id IN (1, 2, 3)"))
+				.contains("BOOK_LIBRARY_ID_IDX");
+	}
+
+	@Test
+	void authorsOfBooksUseTheBookAuthorIndex() {
+		assertThat(plan("SELECT a.id, a.name FROM book_author ba JOIN author a ON a.id = ba.author_id"
+				+ " WHERE ba.book_id IN (1, 2, 3)"))
+				.contains("BOOK_AUTHOR_BOOK_ID_IDX");
+	}
+
+	@Test
+	void theLibraryJoinTableIsGone() {
+		Integer tables = jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM information_schema.tables WHERE table_name = 'LIBRARY_ID'", Integer.class);
+		assertThat(tables).isZero();
+	}
+
+	private String plan(String sql) {
+		return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+	}
+}
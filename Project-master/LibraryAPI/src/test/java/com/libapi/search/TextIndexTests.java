@@ -0,0 +1,77 @@
+package com.libapi.search;
+
+import com.libapi.dto.SearchHit;
+import com.libapi.dto.SearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TextIndexTests {
+
+	private TextIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new TextIndex();
+		index.put(1, "The Lord of the Rings");
+		index.put(2, "Lord Jim");
+		index.put(3, "Les Misérables");
+		index.put(4, "The Lorax");
+	}
+
+	@Test
+	void matchesWordPrefixes() {
+		SearchResult result = index.search("lor", 0, 10);
+		assertThat(result.getHits()).extracting(SearchHit::getId).containsExactlyInAnyOrder(1L, 2L, 4L);
+	}
+
+	@Test
+	void requiresEveryToken() {
+		SearchResult result = index.search("lord ri", 0, 10);
+		assertThat(result.getHits()).extracting(SearchHit::getId).containsExactly(1L);
+	}
+
+	@Test
+	void ranksExactAndShorterMatchesFirst() {
+		SearchResult result = index.search("lord", 0, 10);
+		assertThat(result.getHits()).extracting(SearchHit::getId).containsExactly(2L, 1L);
+	}
+
+	@Test
+	void ignoresCaseAndAccents() {
+		assertThat(index.search("MISERABLES", 0, 10).getHits()).extracting(SearchHit::getId).containsExactly(3L);
+	}
+
+	@Test
+	void pagesThroughHits() {
+		SearchResult first = index.search("l", 0, 2);
+		assertThat(first.getTotal()).isEqualTo(4);
+		assertThat(first.getHits()).hasSize(2);
+		assertThat(first.getNextOffset()).isEqualTo(2);
+
+		SearchResult second = index.search("l", first.getNextOffset(), 2);
+		assertThat(second.getHits()).hasSize(2);
+		assertThat(second.getNextOffset()).isNull();
+	}
+
+	@Test
+	void reindexingReplacesOldTerms() {
+		index.put(2, "Heart of Darkness");
+		assertThat(index.search("jim", 0, 10).getTotal()).isZero();
+		assertThat(index.search("dark", 0, 10).getHits()).extracting(SearchHit::getId).containsExactly(2L);
+
+		index.remove(2);
+		assertThat(index.search("dark", 0, 10).getTotal()).isZero();
+	}
+
+	@Test
+	void rejectsPagesPastTheWindow() {
+		assertThat(index.search("l", TextIndex.MAX_WINDOW - 10, 10).getHits()).isEmpty();
+		assertThatThrownBy(() -> index.search("l", TextIndex.MAX_WINDOW - 9, 10))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> index.search("l", Integer.MAX_VALUE, 10))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
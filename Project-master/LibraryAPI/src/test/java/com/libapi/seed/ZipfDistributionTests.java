@@ -0,0 +1,53 @@
+package com.libapi.seed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ZipfDistributionTests {
+
+	private static final int SAMPLES = 200_000;
+
+	@Test
+	void ranksFollowTheZipfLaw() {
+		int n = 100;
+		long[] counts = sample(new ZipfDistribution(n, 1.0), n);
+
+		double harmonic = 0;
+		for (int k = 1; k <= n; k++) {
+			harmonic += 1.0 / k;
+		}
+		for (int k : new int[]{1, 2, 10}) {
+			assertThat((double) counts[k] / SAMPLES).isCloseTo(1 / (k * harmonic), within(0.01));
+		}
+	}
+
+	@Test
+	void zeroExponentIsUniform() {
+		int n = 10;
+		long[] counts = sample(new ZipfDistribution(n, 0), n);
+
+		for (int k = 1; k <= n; k++) {
+			assertThat((double) counts[k] / SAMPLES).isCloseTo(0.1, within(0.01));
+		}
+	}
+
+	@Test
+	void singleRankIsAlwaysDrawn() {
+		assertThat(sample(new ZipfDistribution(1, 1.2), 1)[1]).isEqualTo(SAMPLES);
+	}
+
+	private static long[] sample(ZipfDistribution distribution, int n) {
+		SplittableRandom random = new SplittableRandom(42);
+		long[] counts = new long[n + 1];
+		for (int i = 0; i < SAMPLES; i++) {
+			long rank = distribution.sample(random);
+			assertThat(rank).isBetween(1L, (long) n);
+			counts[(int) rank]++;
+		}
+		return counts;
+	}
+}
@@ -0,0 +1,85 @@
+package com.libapi.service;
+
+import com.libapi.dto.BatchResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchLoaderTests {
+
+	/**
+	 * The chunks of ids the finder was called with.
+	 */
+	private final List<List<Long>> chunks = new ArrayList<>();
+
+	@Test
+	void itemsFollowTheRequestedOrder() {
+		BatchResult<Long> result = BatchLoader.load(List.of(3L, 1L, 2L), existing(1L, 2L, 3L), Function.identity());
+
+		assertThat(result.getItems()).containsExactly(3L, 1L, 2L);
+		assertThat(result.getMissing()).isEmpty();
+	}
+
+	@Test
+	void duplicateAndNullIdsAreFetchedOnce() {
+		BatchResult<Long> result = BatchLoader.load(Arrays.asList(2L, null, 1L, 2L, null), existing(1L, 2L), Function.identity());
+
+		assertThat(result.getItems()).containsExactly(2L, 1L);
+		assertThat(chunks).containsExactly(List.of(2L, 1L));
+	}
+
+	@Test
+	void missingIdsAreReportedInTheRequestedOrder() {
+		BatchResult<Long> result = BatchLoader.load(List.of(5L, 1L, 4L, 4L), existing(1L), Function.identity());
+
+		assertThat(result.getItems()).containsExactly(1L);
+		assertThat(result.getMissing()).containsExactly(5L, 4L);
+	}
+
+	@Test
+	void idsAreFetchedInChunks() {
+		List<Long> ids = LongStream.rangeClosed(1, BatchLoader.CHUNK_SIZE + 1).boxed().toList();
+
+		BatchResult<Long> result = BatchLoader.load(ids, existing(ids.toArray(Long[]::new)), Function.identity());
+
+		assertThat(chunks).extracting(List::size)
+				.containsExactly(BatchLoader.CHUNK_SIZE, 1);
+		assertThat(result.getItems()).isEqualTo(ids);
+	}
+
+	@Test
+	void tooManyIdsAreRejected() {
+		List<Long> allowed = LongStream.rangeClosed(1, BatchResult.MAX_IDS).boxed().toList();
+		assertThat(BatchLoader.load(allowed, existing(), Function.identity()).getMissing()).hasSize(BatchResult.MAX_IDS);
+
+		chunks.clear();
+		List<Long> tooMany = LongStream.rangeClosed(1, BatchResult.MAX_IDS + 1).boxed().toList();
+		assertThatThrownBy(() -> BatchLoader.load(tooMany, existing(), Function.identity()))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+		assertThat(chunks).isEmpty();
+	}
+
+	/**
+	 * A finder over the given ids, returning the found ones in reverse order, as a database may.
+	 */
+	private Function<List<Long>, List<Long>> existing(Long... ids) {
+		List<Long> existing = List.of(ids);
+		return chunk -> {
+			chunks.add(List.copyOf(chunk));
+			List<Long> found = new ArrayList<>(chunk.stream().filter(existing::contains).toList());
+			Collections.reverse(found);
+			return found;
+		};
+	}
+}
@@ -0,0 +1,99 @@
+package com.libapi.service;
+
+import com.libapi.CatalogFixtures;
+import com.libapi.config.CacheConfig;
+import com.libapi.dto.BulkImportResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A failed link import keeps and reports the chunks committed before the
+ * failure, and evicts the caches for them.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkImportTests {
+
+	@Autowired
+	private BulkImportService bulkImportService;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private CatalogFixtures catalog;
+
+	@Test
+	void missingIdIsRejectedAfterTheCommittedChunks() {
+		Long authorId = catalog.newAuthor();
+		Long bookId = catalog.newBook();
+		bookService.getBookById(bookId);
+		assertThat(cacheManager.getCache(CacheConfig.BOOKS).get(bookId)).isNotNull();
+
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < BulkImportService.CHUNK_SIZE; i++) {
+			body.append("{\"authorId\":").append(authorId).append(",\"bookId\":").append(bookId).append("}\n");
+		}
+		body.append("{\"authorId\":").append(authorId).append("}\n");
+
+		assertThatThrownBy(() -> bulkImportService.importBookAuthorLinks(stream(body.toString())))
+				.isInstanceOfSatisfying(BulkImportException.class, e -> {
+					assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+					BulkImportResult result = e.getResult();
+					assertThat(result.getImported()).isEqualTo(BulkImportService.CHUNK_SIZE);
+					assertThat(result.getError()).startsWith("Row " + (BulkImportService.CHUNK_SIZE + 1) + ":");
+				});
+		assertThat(linkCount(authorId)).isEqualTo(1);
+		assertThat(cacheManager.getCache(CacheConfig.BOOKS).get(bookId)).isNull();
+	}
+
+	@Test
+	void missingBookIsRejected() {
+		Long authorId = catalog.newAuthor();
+
+		assertThatThrownBy(() -> bulkImportService.importBookAuthorLinks(
+				stream("[{\"authorId\":" + authorId + ",\"bookId\":-1}]")))
+				.isInstanceOfSatisfying(BulkImportException.class, e -> {
+					assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+					assertThat(e.getResult().getImported()).isZero();
+				});
+		assertThat(linkCount(authorId)).isZero();
+	}
+
+	@Test
+	void invalidBookIsRejected() {
+		String title = "A".repeat(256);
+
+		assertThatThrownBy(() -> bulkImportService.importBooks(stream("[{\"title\":\"" + title + "\"}]")))
+				.isInstanceOfSatisfying(BulkImportException.class, e -> {
+					assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+					assertThat(e.getResult().getImported()).isZero();
+				});
+	}
+
+	private long linkCount(Long authorId) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book_author WHERE author_id = ?", Long.class, authorId);
+	}
+
+	private static InputStream stream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,137 @@
+package com.libapi.service;
+
+import com.libapi.CatalogFixtures;
+import com.libapi.config.CacheConfig;
+import com.libapi.dto.LinkResult;
+import com.libapi.dto.LinkStatus;
+import com.libapi.repository.LibraryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkLinkTests {
+
+	@Autowired
+	private AuthorService authorService;
+
+	@Autowired
+	private LibraryService libraryService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private LibraryRepository libraryRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private CatalogFixtures catalog;
+
+	@Test
+	void authorLinksReportEveryBook() {
+		Long authorId = catalog.newAuthor();
+		Long first = catalog.newBook();
+		Long second = catalog.newBook();
+
+		authorService.addBooksToAuthor(authorId, List.of(first));
+		LinkResult linked = authorService.addBooksToAuthor(authorId, List.of(first, second, -1L, second));
+
+		assertThat(linked.getResults()).containsExactly(
+				entry(first, LinkStatus.UNCHANGED),
+				entry(second, LinkStatus.LINKED),
+				entry(-1L, LinkStatus.NOT_FOUND));
+		assertThat(linked.getChanged()).isEqualTo(1);
+		assertThat(linked.getFailed()).isEqualTo(1);
+
+		LinkResult unlinked = authorService.removeBooksFromAuthor(authorId, List.of(first, second));
+		assertThat(unlinked.getChanged()).isEqualTo(2);
+		assertThat(authorService.removeBooksFromAuthor(authorId, List.of(first)).getResults())
+				.containsEntry(first, LinkStatus.UNCHANGED);
+	}
+
+	@Test
+	void libraryMovesBooksAcrossChunks() {
+		Long libraryId = catalog.newLibrary();
+		List<Long> bookIds = catalog.newBooks(BatchLoader.CHUNK_SIZE + 10);
+
+		LinkResult added = libraryService.addBooksToLibrary(libraryId, bookIds);
+		assertThat(added.getChanged()).isEqualTo(bookIds.size());
+		assertThat(libraryRepository.countBooksByLibrary(libraryId - 1, 1))
+				.singleElement()
+				.satisfies(stats -> assertThat(stats.getBooks()).isEqualTo(bookIds.size()));
+
+		Long otherLibraryId = catalog.newLibrary();
+		assertThat(libraryService.removeBooksFromLibrary(otherLibraryId, bookIds).getChanged()).isZero();
+		assertThat(libraryService.removeBooksFromLibrary(libraryId, bookIds).getChanged()).isEqualTo(bookIds.size());
+	}
+
+	@Test
+	void bulkCheckoutConflictsWithAnotherCustomer() {
+		Long reader = catalog.newCustomer();
+		Long other = catalog.newCustomer();
+		Long free = catalog.newBook();
+		Long taken = catalog.newBook();
+		assertThat(customerService.checkOutBook(other, taken)).isTrue();
+
+		LinkResult checkedOut = customerService.checkOutBooks(reader, List.of(free, taken));
+		assertThat(checkedOut.getResults()).containsExactly(
+				entry(free, LinkStatus.LINKED),
+				entry(taken, LinkStatus.CONFLICT));
+
+		LinkResult returned = customerService.returnBooks(reader, List.of(free, taken));
+		assertThat(returned.getResults()).containsExactly(
+				entry(free, LinkStatus.UNLINKED),
+				entry(taken, LinkStatus.CONFLICT));
+		assertThat(customerService.checkOutBook(other, free)).isTrue();
+	}
+
+	@Test
+	void bulkLinksEvictTheOtherOwnersOfTheBooks() {
+		Long libraryId = catalog.newLibrary();
+		Long customerId = catalog.newCustomer();
+		List<Long> bookIds = catalog.newBooks(2);
+		libraryService.addBooksToLibrary(libraryId, bookIds);
+
+		libraryService.getLibraryById(libraryId);
+		assertThat(cacheManager.getCache(CacheConfig.LIBRARIES).get(libraryId)).isNotNull();
+		customerService.checkOutBooks(customerId, bookIds);
+		assertThat(cacheManager.getCache(CacheConfig.LIBRARIES).get(libraryId)).isNull();
+
+		customerService.getCustomerById(customerId);
+		assertThat(cacheManager.getCache(CacheConfig.CUSTOMERS).get(customerId)).isNotNull();
+		libraryService.removeBooksFromLibrary(libraryId, bookIds.subList(0, 1));
+		assertThat(cacheManager.getCache(CacheConfig.CUSTOMERS).get(customerId)).isNull();
+	}
+
+	@Test
+	void unknownOwnerIsNotFoundAndOversizedRequestIsRejected() {
+		Long bookId = catalog.newBook();
+
+		assertThat(authorService.addBooksToAuthor(-1L, List.of(bookId))).isNull();
+		assertThat(libraryService.addBooksToLibrary(-1L, List.of(bookId))).isNull();
+		assertThat(customerService.checkOutBooks(-1L, List.of(bookId))).isNull();
+
+		List<Long> tooMany = new ArrayList<>();
+		for (long id = 1; id <= LinkResult.MAX_IDS + 1; id++) {
+			tooMany.add(id);
+		}
+		assertThatThrownBy(() -> authorService.addBooksToAuthor(catalog.newAuthor(), tooMany))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+	}
+}
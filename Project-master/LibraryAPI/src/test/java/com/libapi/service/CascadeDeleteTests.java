@@ -0,0 +1,187 @@
+package com.libapi.service;
+
+import com.libapi.CatalogFixtures;
+import com.libapi.config.CacheConfig;
+import com.libapi.dto.ChangeEvent;
+import com.libapi.dto.ChangeOperation;
+import com.libapi.dto.DeleteResult;
+import com.libapi.entity.AuthorEntity;
+import com.libapi.repository.AuthorRepository;
+import com.libapi.repository.BookRepository;
+import com.libapi.repository.CustomerRepository;
+import com.libapi.repository.LibraryRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Deleting an owner detaches its books with set-based statements. The gap
+ * timeout is zero, as in {@link ChangeFeedTests}, since a rejected delete
+ * leaves a gap in the change log.
+ */
+@SpringBootTest(properties = "libapi.changes.gap-timeout=0s")
+@ActiveProfiles("test")
+class CascadeDeleteTests {
+
+	@Autowired
+	private LibraryService libraryService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private AuthorService authorService;
+
+	@Autowired
+	private ChangeFeedService changeFeedService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private AuthorRepository authorRepository;
+
+	@Autowired
+	private LibraryRepository libraryRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private CatalogFixtures catalog;
+
+	@Test
+	void libraryIsDeletedWithoutLoadingItsBooks() {
+		Long libraryId = catalog.newLibrary();
+		List<Long> bookIds = catalog.newBooks(BatchLoader.CHUNK_SIZE + 10);
+		libraryService.addBooksToLibrary(libraryId, bookIds);
+		long version = bookRepository.findById(bookIds.get(0)).orElseThrow().getVersion();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		libraryService.deleteLibrary(libraryId, null, null);
+
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(libraryRepository.existsById(libraryId)).isFalse();
+		assertThat(count("SELECT COUNT(*) FROM book WHERE id IN (" + join(bookIds) + ") AND library_id IS NULL"))
+				.isEqualTo(bookIds.size());
+		assertThat(bookRepository.findById(bookIds.get(0)).orElseThrow().getVersion()).isEqualTo(version + 1);
+	}
+
+	@Test
+	void borrowersOfShelvedBooksAreEvicted() {
+		Long libraryId = catalog.newLibrary();
+		Long customerId = catalog.newCustomer();
+		List<Long> bookIds = catalog.newBooks(1);
+		libraryService.addBooksToLibrary(libraryId, bookIds);
+		customerService.checkOutBooks(customerId, bookIds);
+		customerService.getCustomerById(customerId);
+		assertThat(cacheManager.getCache(CacheConfig.CUSTOMERS).get(customerId)).isNotNull();
+
+		libraryService.deleteLibrary(libraryId, null, null);
+
+		assertThat(cacheManager.getCache(CacheConfig.CUSTOMERS).get(customerId)).isNull();
+	}
+
+	@Test
+	void booksCanMoveToAnotherLibrary() {
+		Long libraryId = catalog.newLibrary();
+		Long targetId = catalog.newLibrary();
+		List<Long> bookIds = catalog.newBooks(3);
+		libraryService.addBooksToLibrary(libraryId, bookIds);
+		long head = changeFeedService.getChanges(null, null).getLastSequence();
+
+		libraryService.deleteLibrary(libraryId, null, targetId);
+
+		assertThat(count("SELECT COUNT(*) FROM book WHERE library_id = " + targetId)).isEqualTo(bookIds.size());
+		assertThat(changeFeedService.getChanges(head, null).getChanges())
+				.filteredOn(change -> change.getId() == targetId && change.getOperation() == ChangeOperation.LINKED)
+				.extracting(ChangeEvent::getRelatedId)
+				.containsExactlyInAnyOrderElementsOf(bookIds);
+
+		assertThatThrownBy(() -> libraryService.deleteLibraries(List.of(targetId), targetId))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+		assertThatThrownBy(() -> libraryService.deleteLibrary(targetId, null, -1L))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+	}
+
+	@Test
+	void customerBooksAreReturned() {
+		Long customerId = catalog.newCustomer();
+		List<Long> bookIds = catalog.newBooks(2);
+		customerService.checkOutBooks(customerId, bookIds);
+
+		DeleteResult result = customerService.deleteCustomers(List.of(customerId, -1L, customerId));
+
+		assertThat(result.getDeleted()).containsExactly(customerId);
+		assertThat(result.getMissing()).containsExactly(-1L);
+		assertThat(customerRepository.existsById(customerId)).isFalse();
+		assertThat(count("SELECT COUNT(*) FROM book WHERE id IN (" + join(bookIds) + ") AND customer_id IS NULL"))
+				.isEqualTo(bookIds.size());
+	}
+
+	@Test
+	void authorLinksAreRemoved() {
+		Long authorId = catalog.newAuthor();
+		Long coAuthorId = catalog.newAuthor();
+		List<Long> bookIds = catalog.newBooks(2);
+		authorService.addBooksToAuthor(authorId, bookIds);
+		authorService.addBooksToAuthor(coAuthorId, bookIds);
+
+		authorService.deleteAuthor(authorId, null);
+
+		assertThat(authorRepository.existsById(authorId)).isFalse();
+		assertThat(count("SELECT COUNT(*) FROM book_author WHERE author_id = " + authorId)).isZero();
+		assertThat(bookRepository.findById(bookIds.get(0)).orElseThrow().getAuthors())
+				.extracting(AuthorEntity::getId)
+				.containsExactly(coAuthorId);
+	}
+
+	@Test
+	void staleVersionKeepsEverything() {
+		Long libraryId = catalog.newLibrary();
+		List<Long> bookIds = catalog.newBooks(1);
+		libraryService.addBooksToLibrary(libraryId, bookIds);
+		long version = libraryRepository.findById(libraryId).orElseThrow().getVersion();
+
+		assertThatThrownBy(() -> libraryService.deleteLibrary(libraryId, library -> library.getVersion() == version + 1, null))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED));
+		assertThat(count("SELECT COUNT(*) FROM book WHERE library_id = " + libraryId)).isEqualTo(1);
+
+		libraryService.deleteLibrary(libraryId, library -> library.getVersion() == version, null);
+		assertThat(libraryRepository.existsById(libraryId)).isFalse();
+	}
+
+	private long count(String sql) {
+		return jdbcTemplate.queryForObject(sql, Long.class);
+	}
+
+	private static String join(List<Long> ids) {
+		return String.join(",", ids.stream().map(String::valueOf).toList());
+	}
+}
@@ -0,0 +1,160 @@
+package com.libapi.service;
+
+import com.libapi.CatalogFixtures;
+import com.libapi.dto.ChangeBatch;
+import com.libapi.dto.ChangeEvent;
+import com.libapi.dto.ChangeOperation;
+import com.libapi.entity.BookEntity;
+import com.libapi.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Rolled-back inserts leave gaps in the sequence; a gap timeout of zero
+ * delivers past them at once so the tests do not depend on their order.
+ */
+@SpringBootTest(properties = "libapi.changes.gap-timeout=0s")
+@ActiveProfiles("test")
+class ChangeFeedTests {
+
+	@Autowired
+	private ChangeFeedService changeFeedService;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private LibraryService libraryService;
+
+	@Autowired
+	private BulkImportService bulkImportService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private CatalogFixtures catalog;
+
+	@Test
+	void committedChangesAreReadInOrder() {
+		long head = changeFeedService.getChanges(null, null).getLastSequence();
+
+		BookEntity book = new BookEntity();
+		book.setTitle("Dune");
+		Long bookId = bookService.createBook(book).getId();
+		bookService.deleteBook(bookId, null);
+
+		ChangeBatch batch = changeFeedService.getChanges(head, null);
+		assertThat(batch.getChanges())
+				.extracting(ChangeEvent::getResource, ChangeEvent::getId, ChangeEvent::getOperation)
+				.containsExactly(
+						tuple(ChangeEvent.BOOKS, bookId, ChangeOperation.CREATED),
+						tuple(ChangeEvent.BOOKS, bookId, ChangeOperation.DELETED));
+		assertThat(batch.getLastSequence()).isEqualTo(batch.getChanges().get(1).getSequence());
+
+		assertThat(changeFeedService.getChanges(batch.getLastSequence(), null).getChanges()).isEmpty();
+	}
+
+	@Test
+	void limitSplitsTheLogIntoBatches() {
+		long head = changeFeedService.getChanges(null, null).getLastSequence();
+		for (int i = 0; i < 3; i++) {
+			BookEntity book = new BookEntity();
+			book.setTitle("Book " + i);
+			bookService.createBook(book);
+		}
+
+		ChangeBatch first = changeFeedService.getChanges(head, 2);
+		ChangeBatch second = changeFeedService.getChanges(first.getLastSequence(), 2);
+		assertThat(first.getChanges()).hasSize(2);
+		assertThat(second.getChanges()).hasSize(1);
+	}
+
+	@Test
+	void rolledBackChangesAreNotLogged() {
+		long head = changeFeedService.getChanges(null, null).getLastSequence();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			BookEntity book = new BookEntity();
+			book.setTitle("Never shelved");
+			bookService.createBook(book);
+			status.setRollbackOnly();
+		});
+
+		assertThat(changeFeedService.getChanges(head, null).getChanges()).isEmpty();
+	}
+
+	@Test
+	void movingBooksLogsBothLibraries() {
+		Long from = catalog.newLibrary();
+		Long to = catalog.newLibrary();
+		BookEntity book = new BookEntity();
+		book.setTitle("Dune");
+		Long bookId = bookRepository.save(book).getId();
+		libraryService.addBooksToLibrary(from, List.of(bookId));
+		long head = changeFeedService.getChanges(null, null).getLastSequence();
+
+		libraryService.addBooksToLibrary(to, List.of(bookId));
+
+		assertThat(changeFeedService.getChanges(head, null).getChanges())
+				.extracting(ChangeEvent::getId, ChangeEvent::getOperation, ChangeEvent::getRelatedId)
+				.containsExactly(
+						tuple(from, ChangeOperation.UNLINKED, bookId),
+						tuple(to, ChangeOperation.LINKED, bookId));
+	}
+
+	@Test
+	void bulkImportsAreLogged() throws IOException {
+		Long authorId = catalog.newAuthor();
+		Long bookId = catalog.newBook();
+		long head = changeFeedService.getChanges(null, null).getLastSequence();
+
+		bulkImportService.importBooks(stream("[{\"title\":\"Dune\"},{\"title\":\"Emma\"}]"));
+		bulkImportService.importAuthors(stream("{\"name\":\"Austen\"}"));
+		bulkImportService.importBookAuthorLinks(stream("{\"authorId\":" + authorId + ",\"bookId\":" + bookId + "}"));
+
+		assertThat(changeFeedService.getChanges(head, null).getChanges())
+				.extracting(ChangeEvent::getResource, ChangeEvent::getOperation)
+				.containsExactly(
+						tuple(ChangeEvent.BOOKS, ChangeOperation.CREATED),
+						tuple(ChangeEvent.BOOKS, ChangeOperation.CREATED),
+						tuple(ChangeEvent.AUTHORS, ChangeOperation.CREATED),
+						tuple(ChangeEvent.AUTHORS, ChangeOperation.LINKED));
+		assertThat(changeFeedService.getChanges(head, null).getChanges().get(3))
+				.extracting(ChangeEvent::getId, ChangeEvent::getRelatedId)
+				.containsExactly(authorId, bookId);
+	}
+
+	@Test
+	void changesBeforeTheOldestKeptAreGone() {
+		BookEntity book = new BookEntity();
+		book.setTitle("Dune");
+		bookService.createBook(book);
+
+		assertThatThrownBy(() -> changeFeedService.getChanges(-1L, null))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.GONE));
+	}
+
+	private static InputStream stream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
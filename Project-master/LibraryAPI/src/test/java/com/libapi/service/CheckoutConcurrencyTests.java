@@ -0,0 +1,96 @@
+package com.libapi.service;
+
+import com.libapi.CatalogFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CheckoutConcurrencyTests {
+
+	private static final int CUSTOMERS = 16;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private CatalogFixtures catalog;
+
+	@Test
+	void concurrentCheckoutsOfOneBookHaveASingleWinner() throws Exception {
+		Long bookId = catalog.newBook();
+		List<Long> customerIds = new ArrayList<>();
+		for (int i = 0; i < CUSTOMERS; i++) {
+			customerIds.add(catalog.newCustomer());
+		}
+
+		AtomicInteger won = new AtomicInteger();
+		AtomicInteger conflicts = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(CUSTOMERS);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (Long customerId : customerIds) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					try {
+						if (customerService.checkOutBook(customerId, bookId)) {
+							won.incrementAndGet();
+						}
+					} catch (ResponseStatusException e) {
+						assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+						conflicts.incrementAndGet();
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(won.get()).isEqualTo(1);
+		assertThat(conflicts.get()).isEqualTo(CUSTOMERS - 1);
+	}
+
+	@Test
+	void returnedBookCanBeCheckedOutAgain() {
+		Long bookId = catalog.newBook();
+		Long first = catalog.newCustomer();
+		Long second = catalog.newCustomer();
+
+		assertThat(customerService.checkOutBook(first, bookId)).isTrue();
+		assertThatThrownBy(() -> customerService.returnBook(second, bookId))
+				.isInstanceOf(ResponseStatusException.class);
+		assertThat(customerService.returnBook(first, bookId)).isTrue();
+		assertThat(customerService.checkOutBook(second, bookId)).isTrue();
+	}
+
+	@Test
+	void unknownBookOrCustomerIsNotFound() {
+		Long bookId = catalog.newBook();
+		Long customerId = catalog.newCustomer();
+
+		assertThat(customerService.checkOutBook(customerId, -1L)).isFalse();
+		assertThat(customerService.checkOutBook(-1L, bookId)).isFalse();
+	}
+}
@@ -0,0 +1,106 @@
+package com.libapi.service;
+
+import com.libapi.config.CacheConfig;
+import com.libapi.entity.BookEntity;
+import com.libapi.repository.BookRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Callers waiting for another caller's load hold no pooled connection, so
+ * more of them can wait than the pool has connections. The change feed poll
+ * is slowed down so that it takes no connection during the test.
+ */
+@SpringBootTest(properties = "libapi.changes.poll-interval=PT1H")
+@ActiveProfiles("test")
+class CoalescedReadTests {
+
+	private static final int CALLERS = 30;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private ReadCoalescer readCoalescer;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private DataSource dataSource;
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	void shutDown() {
+		release.countDown();
+		executor.shutdownNow();
+	}
+
+	@Test
+	void waitersHoldNoConnection() throws Exception {
+		BookEntity book = new BookEntity();
+		book.setTitle("Dune");
+		Long bookId = bookRepository.save(book).getId();
+		cacheManager.getCache(CacheConfig.BOOKS).evict(bookId);
+		HikariDataSource pool = (HikariDataSource) dataSource;
+		assertThat(CALLERS).isGreaterThan(pool.getMaximumPoolSize());
+
+		BookEntity loaded = bookRepository.findById(bookId).orElseThrow();
+		double joined = joinedReads();
+		Future<BookEntity> leader = executor.submit(() -> readCoalescer.load(CacheConfig.BOOKS, bookId, () -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return loaded;
+		}));
+		List<Future<BookEntity>> callers = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			callers.add(executor.submit(() -> bookService.getBookById(bookId)));
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (joinedReads() < joined + CALLERS && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(joinedReads()).isEqualTo(joined + CALLERS);
+		assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isZero();
+
+		release.countDown();
+		assertThat(leader.get(10, TimeUnit.SECONDS)).isSameAs(loaded);
+		for (Future<BookEntity> caller : callers) {
+			assertThat(caller.get(10, TimeUnit.SECONDS)).isSameAs(loaded);
+		}
+	}
+
+	private double joinedReads() {
+		return meterRegistry.counter("libapi.coalescing.reads", "resource", CacheConfig.BOOKS, "outcome", "joined").count();
+	}
+}
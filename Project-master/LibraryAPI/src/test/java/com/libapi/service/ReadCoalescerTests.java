@@ -0,0 +1,138 @@
+package com.libapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReadCoalescerTests {
+
+	private static final int CALLERS = 50;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	void shutDown() {
+		release.countDown();
+		executor.shutdownNow();
+	}
+
+	@Test
+	void stampedeRunsOneLoad() throws Exception {
+		ReadCoalescer coalescer = coalescer(new MockEnvironment());
+
+		List<Future<Object>> callers = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			callers.add(executor.submit(() -> coalescer.load("books", 1L, this::blockedLoad)));
+		}
+		awaitReads("loaded", 1);
+		awaitReads("joined", CALLERS - 1);
+		release.countDown();
+
+		Object first = callers.get(0).get(10, TimeUnit.SECONDS);
+		for (Future<Object> caller : callers) {
+			assertThat(caller.get(10, TimeUnit.SECONDS)).isSameAs(first);
+		}
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void readsAfterACommittedWriteDoNotJoinEarlierLoads() throws Exception {
+		ReadCoalescer coalescer = coalescer(new MockEnvironment());
+		Future<Object> before = executor.submit(() -> coalescer.load("books", 1L, this::blockedLoad));
+		awaitReads("loaded", 1);
+
+		coalescer.invalidateAfterCommit();
+		Object after = coalescer.load("books", 1L, () -> "after the write");
+
+		assertThat(after).isEqualTo("after the write");
+		release.countDown();
+		assertThat(before.get(10, TimeUnit.SECONDS)).isNotEqualTo("after the write");
+	}
+
+	@Test
+	void waitersGetTheLoadersException() throws Exception {
+		ReadCoalescer coalescer = coalescer(new MockEnvironment());
+		Future<Object> leader = executor.submit(() -> coalescer.load("books", 1L, () -> {
+			blockedLoad();
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		}));
+		awaitReads("loaded", 1);
+		Future<Object> waiter = executor.submit(() -> coalescer.load("books", 1L, this::blockedLoad));
+		awaitReads("joined", 1);
+		release.countDown();
+
+		for (Future<Object> caller : List.of(leader, waiter)) {
+			assertThatThrownBy(() -> caller.get(10, TimeUnit.SECONDS))
+					.isInstanceOf(ExecutionException.class)
+					.hasCauseInstanceOf(ResponseStatusException.class);
+		}
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void readsPastTheBoundLoadOnTheirOwn() throws Exception {
+		ReadCoalescer coalescer = coalescer(new MockEnvironment().withProperty("libapi.coalescing.max-flights", "1"));
+		executor.submit(() -> coalescer.load("books", 1L, this::blockedLoad));
+		awaitReads("loaded", 1);
+
+		assertThat(coalescer.load("books", 2L, () -> "own load")).isEqualTo("own load");
+		assertThat(reads("bypassed")).isEqualTo(1);
+	}
+
+	@Test
+	void disabledCoalescerLoadsEveryRead() {
+		ReadCoalescer coalescer = coalescer(new MockEnvironment().withProperty("libapi.coalescing.enabled", "false"));
+
+		coalescer.load("books", 1L, loads::incrementAndGet);
+		coalescer.load("books", 1L, loads::incrementAndGet);
+		assertThat(loads).hasValue(2);
+	}
+
+	private ReadCoalescer coalescer(MockEnvironment environment) {
+		return new ReadCoalescer(registry, environment);
+	}
+
+	private Object blockedLoad() {
+		loads.incrementAndGet();
+		try {
+			release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return new Object();
+	}
+
+	private double reads(String outcome) {
+		return registry.counter("libapi.coalescing.reads", "resource", "books", "outcome", outcome).count();
+	}
+
+	private void awaitReads(String outcome, int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (reads(outcome) < count) {
+			assertThat(System.nanoTime()).isLessThan(deadline);
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.libapi.service;
+
+import com.libapi.dto.SearchHit;
+import com.libapi.entity.BookEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The search indexes follow committed writes only.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SearchIndexTests {
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private SearchIndexService searchIndexService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void rolledBackWritesLeaveTheIndexUnchanged() {
+		BookEntity book = new BookEntity();
+		book.setTitle("Quasquicentennial");
+		Long bookId = bookService.createBook(book).getId();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			bookService.deleteBook(bookId, null);
+			status.setRollbackOnly();
+		});
+		assertThat(searchIndexService.searchBooks("quasquicentennial", null, null).getHits())
+				.extracting(SearchHit::getId)
+				.containsExactly(bookId);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			BookEntity renamed = new BookEntity();
+			renamed.setTitle("Sesquicentennial");
+			bookService.updateBook(bookId, renamed, null);
+			status.setRollbackOnly();
+		});
+		assertThat(searchIndexService.searchBooks("sesquicentennial", null, null).getHits()).isEmpty();
+
+		bookService.deleteBook(bookId, null);
+		assertThat(searchIndexService.searchBooks("quasquicentennial", null, null).getHits()).isEmpty();
+	}
+}